@@ -4,6 +4,7 @@ set f1=".\INPUT\Original.txt"
 set f2=".\INPUT\Comparative1.txt"
 set f3=".\INPUT\Comparative2.txt"
 set f4=".\INPUT\Comparative3.txt"
+set manifest=".\INPUT\Manifest.tsv"
 set jar=".\dist\Ranking-OCR.jar"
 set out=".\out.csv"
 REM show the help
@@ -13,4 +14,6 @@ REM Start comparisons
 java -jar %jar% -indoc1 %f1%  -indoc2 %f2% -outdoc %out% -ranker SimpleRanker 
 java -jar %jar% -indoc1 %f1%  -indoc2 %f3% -outdoc %out% -ranker SimpleRanker 
 java -jar %jar% -indoc1 %f1%  -indoc2 %f4% -outdoc %out% -ranker SimpleRanker 
+REM Same comparisons in a single run
+java -jar %jar% -manifest %manifest% -outdoc %out% -ranker SimpleRanker 
 pause
\ No newline at end of file
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import main.CsvResultSink;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measure the writing of the results to a {@link CsvResultSink}.
+ * <p>
+ * @author Nils Ryter
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CsvResultSinkBenchmark {
+
+    //Maximum number of row kept in the buffer
+    @Param({"1", "64"})
+    public int flushRows;
+    //Result file
+    private File result;
+    //Fields of a result row
+    private final String[] row = {"4.123456789", "SimpleRanker",
+        "original.txt", "comparative.txt", "/data/originals",
+        "/data/comparatives", "Mon Oct 13 10:00:00 CEST 2014"};
+    //Result sink
+    private CsvResultSink sink;
+
+    /**
+     * Open a new result file.
+     * <p>
+     * @throws IOException The file can not be opened
+     */
+    @Setup(Level.Iteration)
+    public void setup() throws IOException {
+        result = File.createTempFile("benchmark", ".csv");
+        sink = new CsvResultSink(result, ';', row, flushRows, 1000);
+    }
+
+    /**
+     * Close and delete the result file.
+     * <p>
+     * @throws IOException The file can not be closed
+     */
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        sink.close();
+        result.delete();
+    }
+
+    /**
+     * Write a result row.
+     * <p>
+     * @throws IOException The row can not be written
+     */
+    @Benchmark
+    public void write() throws IOException {
+        sink.write(row);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import libraries.DocumentReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measure the reading of the documents with {@link DocumentReader}, like
+ * {@code RankerOCR.readInputDocText} does.
+ * <p>
+ * @author Nils Ryter
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DocumentReaderBenchmark {
+
+    //Charset of the document
+    private static final Charset CHARSET = StandardCharsets.UTF_8;
+    //Document file
+    private File document;
+    //Number of word of the document
+    @Param({"" + Documents.PAGE, "" + Documents.CHAPTER, "" + Documents.BOOK})
+    public int size;
+
+    /**
+     * Write the document file.
+     * <p>
+     * @throws IOException The file can not be written
+     */
+    @Setup
+    public void setup() throws IOException {
+        document = File.createTempFile("benchmark", ".txt");
+        document.deleteOnExit();
+        Files.write(document.toPath(),
+                Documents.text(Documents.original(size)).getBytes(CHARSET));
+    }
+
+    /**
+     * Delete the document file.
+     */
+    @TearDown
+    public void tearDown() {
+        document.delete();
+    }
+
+    /**
+     * Read the whole document.
+     * <p>
+     * @return Text of the document
+     * @throws IOException The document can not be read
+     */
+    @Benchmark
+    public String read() throws IOException {
+        return DocumentReader.read(document, CHARSET);
+    }
+
+    /**
+     * Read the document through a reader, as the streaming comparison does.
+     * <p>
+     * @return Number of charter read
+     * @throws IOException The document can not be read
+     */
+    @Benchmark
+    public long readStream() throws IOException {
+        long length = 0;
+        char[] buffer = new char[8192];
+        try (Reader r = DocumentReader.open(document, CHARSET)) {
+            for (int n; (n = r.read(buffer)) >= 0;) {
+                length += n;
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package benchmark;
+
+import java.text.Normalizer;
+import java.util.Random;
+
+/**
+ * Generate the documents used by the benchmarks.
+ * <p>
+ * The documents are made of words drawn from a fixed vocabulary with accented
+ * charters and punctuation, like a book. The comparative documents are the
+ * original with a given rate of words substituted, inserted or removed. The
+ * generation is deterministic, so every run measures the same documents.
+ * <p>
+ * @author Nils Ryter
+ */
+public class Documents {
+
+    //Number of word of a page
+    public static final int PAGE = 300;
+    //Number of word of a chapter
+    public static final int CHAPTER = 10000;
+    //Number of word of a book
+    public static final int BOOK = 200000;
+    //Seed of the generator
+    private static final long SEED = 42;
+    //Vocabulary of the documents
+    private static final String[] VOCABULARY = vocabulary(5000);
+
+    /**
+     * Documents can't be instantiated.
+     */
+    private Documents() {
+    }
+
+    /**
+     * Add errors to a document.
+     * <p>
+     * @param original Words of the original document
+     * @param errorRate Rate of words with an error, from 0 to 1
+     * @return Text of the comparative document
+     */
+    public static String comparative(String[] original, double errorRate) {
+        Random r = new Random(SEED + 1);
+        StringBuilder text = new StringBuilder();
+        for (String word : original) {
+            if (r.nextDouble() < errorRate) {
+                switch (r.nextInt(3)) {
+                    case 0:
+                        //Substitute a charter by another letter, so the word
+                        //stays a single word of the same length
+                        char[] c = word.toCharArray();
+                        int i = r.nextInt(c.length);
+                        char letter;
+                        do {
+                            letter = (char) ('a' + r.nextInt(26));
+                        } while (letter == unaccented(c[i]));
+                        c[i] = letter;
+                        append(text, new String(c), r);
+                        break;
+                    case 1:
+                        //Insert a word
+                        append(text, VOCABULARY[r.nextInt(VOCABULARY.length)],
+                                r);
+                        append(text, word, r);
+                        break;
+                    default:
+                    //Remove the word
+                }
+            } else {
+                append(text, word, r);
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Return a charter in lower case without its accent.
+     * <p>
+     * @param c Charter
+     * @return Un-accented lower case charter
+     */
+    private static char unaccented(char c) {
+        return Normalizer.normalize(String.valueOf(Character.toLowerCase(c)),
+                Normalizer.Form.NFD).charAt(0);
+    }
+
+    /**
+     * Generate the words of an original document.
+     * <p>
+     * @param nbWord Number of word of the document
+     * @return Words of the document
+     */
+    public static String[] original(int nbWord) {
+        Random r = new Random(SEED);
+        String[] words = new String[nbWord];
+        for (int i = 0; i < nbWord; ++i) {
+            //Zipf-like distribution, the first words are the most frequent
+            double x = r.nextDouble();
+            words[i] = VOCABULARY[(int) (x * x * x * VOCABULARY.length)];
+        }
+        return words;
+    }
+
+    /**
+     * Generate the text of an original document.
+     * <p>
+     * @param words Words of the document
+     * @return Text of the document
+     */
+    public static String text(String[] words) {
+        return comparative(words, 0);
+    }
+
+    /**
+     * Append a word and a separator to a text.
+     * <p>
+     * @param text Text
+     * @param word Word to append
+     * @param r Random generator
+     */
+    private static void append(StringBuilder text, String word, Random r) {
+        text.append(word);
+        int k = r.nextInt(20);
+        text.append(k == 0 ? ".\n" : k == 1 ? ", " : " ");
+    }
+
+    /**
+     * Generate a vocabulary.
+     * <p>
+     * @param size Number of word
+     * @return Words
+     */
+    private static String[] vocabulary(int size) {
+        String letters = "abcdefghijklmnopqrstuvwxyzéèàçôü";
+        Random r = new Random(SEED);
+        String[] words = new String[size];
+        for (int i = 0; i < size; ++i) {
+            char[] c = new char[1 + r.nextInt(4) + r.nextInt(6)];
+            for (int j = 0; j < c.length; ++j) {
+                int bound = j == 0 ? 26 : letters.length();
+                c[j] = letters.charAt(r.nextInt(bound));
+            }
+            if (r.nextInt(10) == 0) {
+                c[0] = Character.toUpperCase(c[0]);
+            }
+            words[i] = new String(c);
+        }
+        return words;
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package benchmark;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ranking.PreparedDocument;
+import ranking.Ranker;
+import ranking.RankerRegistry;
+
+/**
+ * Measure the comparison of the rankers.
+ * <p>
+ * The documents go from a page to a book, with an error rate from 0% to 50%.
+ * The comparison is measured on texts, on a prepared original and on readers.
+ * <p>
+ * @author Nils Ryter
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RankerBenchmark {
+
+    //Text of the comparative document
+    private String comparative;
+    //Rate of words with an error, from 0 to 1
+    @Param({"0", "0.05", "0.2", "0.5"})
+    public double errorRate;
+    //Ranker to measure
+    private Ranker instance;
+    //Text of the original document
+    private String original;
+    //Original document, prepared
+    private PreparedDocument prepared;
+    //Name of the ranker, all the rankers of the registry
+    @Param({"SimpleRanker", "WordErrorRanker", "CharacterErrorRanker",
+        "PatienceRanker"})
+    public String ranker;
+    //Number of word of the original document
+    @Param({"" + Documents.PAGE, "" + Documents.CHAPTER, "" + Documents.BOOK})
+    public int size;
+
+    /**
+     * Generate the documents and get the ranker.
+     */
+    @Setup
+    public void setup() {
+        String[] words = Documents.original(size);
+        original = Documents.text(words);
+        comparative = Documents.comparative(words, errorRate);
+        instance = RankerRegistry.find(ranker).getRanker();
+        prepared = instance.prepare(original);
+    }
+
+    /**
+     * Compare the texts of the documents.
+     * <p>
+     * @return Error rate
+     */
+    @Benchmark
+    public double compare() {
+        return instance.compare(original, comparative);
+    }
+
+    /**
+     * Compare the comparative text to the prepared original.
+     * <p>
+     * @return Error rate
+     */
+    @Benchmark
+    public double comparePrepared() {
+        return instance.compare(prepared, comparative);
+    }
+
+    /**
+     * Compare the documents read from readers.
+     * <p>
+     * @return Error rate
+     * @throws IOException Never thrown by a string reader
+     */
+    @Benchmark
+    public double compareStream() throws IOException {
+        return instance.compare(new StringReader(original),
+                new StringReader(comparative));
+    }
+}
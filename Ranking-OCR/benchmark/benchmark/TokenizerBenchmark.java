@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ranking.PreparedDocument;
+import ranking.Tokenizer;
+
+/**
+ * Measure the normalization and the tokenization of the documents.
+ * <p>
+ * @author Nils Ryter
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class TokenizerBenchmark {
+
+    //Original document, prepared
+    private PreparedDocument prepared;
+    //Number of word of the document
+    @Param({"" + Documents.PAGE, "" + Documents.CHAPTER, "" + Documents.BOOK})
+    public int size;
+    //Text of the document
+    private String text;
+    //Tokenizer, reset for each operation
+    private final Tokenizer tokenizer = new Tokenizer();
+
+    /**
+     * Generate the document.
+     */
+    @Setup
+    public void setup() {
+        text = Documents.text(Documents.original(size));
+        prepared = new PreparedDocument(text);
+    }
+
+    /**
+     * Split the text in normalized words.
+     * <p>
+     * @return Number of charter of the words
+     */
+    @Benchmark
+    public int tokenize() {
+        int length = 0;
+        tokenizer.reset(text);
+        while (tokenizer.next()) {
+            length += tokenizer.token().length();
+        }
+        return length;
+    }
+
+    /**
+     * Split the text and look up the words in the dictionary of a prepared
+     * document.
+     * <p>
+     * @return Word identifiers
+     */
+    @Benchmark
+    public int[] lookup() {
+        return prepared.lookup(text);
+    }
+
+    /**
+     * Prepare the document: split it, build the dictionary and the index.
+     * <p>
+     * @return Prepared document
+     */
+    @Benchmark
+    public PreparedDocument prepare() {
+        return new PreparedDocument(text);
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package events;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event of the alignment of two documents by a ranker.
+ * <p>
+ * @author Nils Ryter
+ */
+@Name("rankerocr.Align")
+@Label("Align")
+@Description("Align the words of two documents and count the errors")
+public class AlignEvent extends DocumentEvent {
+
+    //Number of word of the comparative document, or code point for CER
+    @Label("Comparative Words")
+    public long comparativeWords;
+    //Number of error found
+    @Label("Errors")
+    public long errors;
+    //Number of word of the original document, or code point for CER
+    @Label("Original Words")
+    public long originalWords;
+    //Name of the ranker
+    @Label("Ranker")
+    public String ranker;
+    //Number of sync counting both words as an error
+    @Label("Sync Both")
+    public long syncBoth;
+    //Number of sync skipping comparative words
+    @Label("Sync Comparative")
+    public long syncComparative;
+    //Number of sync skipping original words
+    @Label("Sync Original")
+    public long syncOriginal;
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package events;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Names of the documents ranked by the current thread, added to the events.
+ * <p>
+ * The ranking classes don't know the files of the documents, so the caller
+ * sets them before ranking a pair and clears them after. The names are only
+ * read when an event is recorded.
+ * <p>
+ * @author Nils Ryter
+ */
+public final class DocumentContext {
+
+    //Names of the original and comparative documents of the thread
+    private static final ThreadLocal<String[]> NAMES = new ThreadLocal<>();
+    //Thread management, to read the allocated bytes
+    private static final ThreadMXBean THREADS
+            = ManagementFactory.getThreadMXBean();
+
+    /**
+     * DocumentContext can't be instantiated.
+     */
+    private DocumentContext() {
+    }
+
+    /**
+     * Return the number of byte allocated by the current thread since its
+     * start.
+     * <p>
+     * @return Number of byte, or -1 if the JVM doesn't count them
+     */
+    public static long allocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) THREADS)
+                    .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    /**
+     * Forget the documents of the current thread.
+     */
+    public static void clear() {
+        NAMES.remove();
+    }
+
+    /**
+     * Return the name of the comparative document of the current thread.
+     * <p>
+     * @return Name, or null if not set
+     */
+    public static String getComparative() {
+        String[] n = NAMES.get();
+        return n == null ? null : n[1];
+    }
+
+    /**
+     * Return the name of the original document of the current thread.
+     * <p>
+     * @return Name, or null if not set
+     */
+    public static String getOriginal() {
+        String[] n = NAMES.get();
+        return n == null ? null : n[0];
+    }
+
+    /**
+     * Set the documents ranked by the current thread.
+     * <p>
+     * @param original Name of the original document
+     * @param comparative Name of the comparative document
+     */
+    public static void set(String original, String comparative) {
+        NAMES.set(new String[]{original, comparative});
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+/**
+ * Base of the Flight Recorder events about a pair of documents.
+ * <p>
+ * The events are created and begun on every call, but they are only filled
+ * and committed when a recording enables them, so they cost next to nothing
+ * otherwise.
+ * <p>
+ * @author Nils Ryter
+ */
+@Category("Ranking OCR")
+public abstract class DocumentEvent extends Event {
+
+    //Name of the comparative document
+    @Label("Comparative")
+    public String comparative;
+    //Name of the original document
+    @Label("Original")
+    public String original;
+
+    /**
+     * Fill the document names from the {@link DocumentContext} and commit the
+     * event.
+     */
+    public void commitDocuments() {
+        original = DocumentContext.getOriginal();
+        comparative = DocumentContext.getComparative();
+        commit();
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package events;
+
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event of the whole ranking of a pair of documents, from the
+ * reading of the files to the writing of the result.
+ * <p>
+ * @author Nils Ryter
+ */
+@Name("rankerocr.Rank")
+@Label("Rank Documents")
+@Description("Read, compare and write the result of a pair of documents")
+public class RankEvent extends DocumentEvent {
+
+    //Number of byte allocated by the thread, -1 if unknown
+    @Label("Allocated")
+    @DataAmount
+    public long allocated;
+    //Number of error found
+    @Label("Errors")
+    public long errors;
+    //Name of the ranker
+    @Label("Ranker")
+    public String ranker;
+    //Number of word, or charter, of the original document
+    @Label("Words")
+    public long words;
+}
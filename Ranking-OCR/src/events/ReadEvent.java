@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package events;
+
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event of the reading of a document file.
+ * <p>
+ * @author Nils Ryter
+ */
+@Name("rankerocr.Read")
+@Label("Document Read")
+@Description("Read and decode the text of a document file")
+public class ReadEvent extends DocumentEvent {
+
+    //Path of the file read
+    @Label("File")
+    public String file;
+    //Size of the file
+    @Label("Size")
+    @DataAmount
+    public long size;
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package events;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event of the tokenization of a document: the words are
+ * normalized and converted to identifiers in the same pass.
+ * <p>
+ * @author Nils Ryter
+ */
+@Name("rankerocr.Tokenize")
+@Label("Tokenize")
+@Description("Split a document in normalized words and look them up")
+public class TokenizeEvent extends DocumentEvent {
+
+    //Number of charter of the text
+    @Label("Characters")
+    public long characters;
+    //True for the original document, false for the comparative document
+    @Label("Original Side")
+    public boolean originalSide;
+    //Number of word found
+    @Label("Words")
+    public long words;
+}
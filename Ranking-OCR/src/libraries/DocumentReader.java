@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package libraries;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Library which provide methods to read the text of documents.
+ * <p>
+ * The files are read through a {@link FileChannel} and decoded with an
+ * explicit charset. A small file is read in one pass, a large file is mapped in
+ * memory and decoded by chunks. Malformed input is replaced, as a
+ * {@link java.io.FileReader} does.
+ * <p>
+ * @author Nils Ryter
+ */
+public class DocumentReader {
+
+    //Size of the chunks decoded at once
+    private static final int CHUNK_SIZE = 1 << 16;
+    //Files larger than this size are mapped in memory
+    private static final long MAP_THRESHOLD = 1 << 20;
+
+    /**
+     * Open a reader on a file, decoding it by large chunks.
+     * <p>
+     * @param f Document file
+     * @param charset Charset of the document
+     * @return Reader of the document text, to be closed by the caller
+     * @throws IOException The file can not be opened
+     */
+    public static Reader open(File f, Charset charset) throws IOException {
+        FileChannel channel = FileChannel.open(f.toPath(),
+                StandardOpenOption.READ);
+        return Channels.newReader(channel, newDecoder(charset), CHUNK_SIZE);
+    }
+
+    /**
+     * Read the whole text of a file.
+     * <p>
+     * @param f Document file
+     * @param charset Charset of the document
+     * @return Text of the document
+     * @throws IOException The file can not be read or is too large for a
+     * String
+     */
+    public static String read(File f, Charset charset) throws IOException {
+        try (FileChannel channel = FileChannel.open(f.toPath(),
+                StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File too large : " + f);
+            }
+            CharsetDecoder decoder = newDecoder(charset);
+            if (size <= MAP_THRESHOLD) {
+                //Read the file in one pass
+                ByteBuffer in = ByteBuffer.allocate((int) size);
+                int n = 0;
+                while (in.hasRemaining() && n >= 0) {
+                    n = channel.read(in);
+                }
+                in.flip();
+                return decoder.decode(in).toString();
+            }
+            //Map the file and decode it by chunks
+            ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            StringBuilder s = new StringBuilder((int) Math.min(
+                    Integer.MAX_VALUE - 8,
+                    size * decoder.averageCharsPerByte()));
+            CharBuffer out = CharBuffer.allocate(CHUNK_SIZE);
+            CoderResult r;
+            do {
+                r = decoder.decode(in, out, true);
+                out.flip();
+                s.append(out);
+                out.clear();
+            } while (r.isOverflow());
+            do {
+                r = decoder.flush(out);
+                out.flip();
+                s.append(out);
+                out.clear();
+            } while (r.isOverflow());
+            return s.toString();
+        }
+    }
+
+    /**
+     * Create a decoder which replaces the malformed input.
+     * <p>
+     * @param charset Charset to decode
+     * @return Decoder
+     */
+    private static CharsetDecoder newDecoder(Charset charset) {
+        return charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+}
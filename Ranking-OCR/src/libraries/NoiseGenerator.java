@@ -0,0 +1,647 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package libraries;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Library which generate large documents with OCR-like errors from an original
+ * text, for load and scaling tests.
+ * <p>
+ * The original text is repeated line by line until the requested size is
+ * reached. The comparative document is the same text with the following
+ * errors, each one with its own rate: <br>
+ * <ul>
+ * <li>substitution: a letter or a digit is replaced by a charter OCR often
+ * confuses it with, by charter; </li>
+ * <li>split: a space is inserted in a word, by charter; </li>
+ * <li>merge: the space between two words is removed, by space; </li>
+ * <li>insertion: a spurious charter is inserted, by charter; </li>
+ * <li>dropped line: a whole line is missing, by line; </li>
+ * <li>reordered block: a block of lines is moved after the next block, by
+ * block. </li>
+ * </ul>
+ * <p>
+ * The documents only depend on the text, the rates and the seed, so they can
+ * be generated again instead of being stored. They can be written to files or
+ * read from readers generating the text on demand with a constant memory. The
+ * number of each error injected is counted, so the error rate of the
+ * comparative document is known.
+ * <p>
+ * @author Nils Ryter
+ */
+public class NoiseGenerator {
+
+    //Charters confused by OCR, a charter is replaced by the next one
+    private static final String[] CONFUSIONS = {"il1I|", "oO0Q", "ec",
+        "nmh", "uv", "S5s", "B8", "Z2z", "g9q", "A4", "G6", "T7", "rt", "fl",
+        "EF", "PR", "yv", "DO", "aeo"};
+    //Charters inserted by OCR
+    private static final String INSERTIONS = ".,'-:;|~";
+    //Number of line of a reordered block
+    private int blockSize = 4;
+    //Rate of dropped lines
+    private double droppedLineRate = 0;
+    //Rate of inserted charters
+    private double insertionRate = 0;
+    //Rate of merged words
+    private double mergeRate = 0;
+    //Number of charter of the last generated original
+    private long nbCharacter;
+    //Number of dropped line in the last generated comparative
+    private long nbDroppedLine;
+    //Number of dropped word in the last generated comparative
+    private long nbDroppedWord;
+    //Number of inserted charter in the last generated comparative
+    private long nbInsertion;
+    //Number of merged words in the last generated comparative
+    private long nbMerge;
+    //Number of reordered block in the last generated comparative
+    private long nbReorderedBlock;
+    //Number of split word in the last generated comparative
+    private long nbSplit;
+    //Number of substituted charter in the last generated comparative
+    private long nbSubstitution;
+    //Number of word of the last generated original
+    private long nbWord;
+    //Lines of the original text, with their end of line
+    private final String[] lines;
+    //Rate of reordered blocks
+    private double reorderRate = 0;
+    //Seed of the random generator
+    private final long seed;
+    //Rate of split words
+    private double splitRate = 0;
+    //Rate of substituted charters
+    private double substitutionRate = 0;
+
+    /**
+     * Create a new NoiseGenerator without errors.
+     * <p>
+     * @param text Original text
+     * @param seed Seed of the random generator
+     */
+    public NoiseGenerator(String text, long seed) {
+        this.seed = seed;
+        List<String> l = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < text.length(); ++i) {
+            if (text.charAt(i) == '\n') {
+                l.add(text.substring(start, i + 1));
+                start = i + 1;
+            }
+        }
+        if (start < text.length()) {
+            l.add(text.substring(start) + "\n");
+        }
+        if (l.isEmpty()) {
+            throw new IllegalArgumentException("Empty original text");
+        }
+        lines = l.toArray(new String[l.size()]);
+    }
+
+    /**
+     * Generate an original document and a comparative document.
+     * <p>
+     * Usage: NoiseGenerator original size seed noise outOriginal
+     * outComparative. The size is a number of charter, with an optional K, M
+     * or G suffix. The noise is the rate of substitution, the other rates are
+     * derived from it.
+     * <p>
+     * @param args Arguments
+     * @throws IOException A file can not be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 6) {
+            System.err.println("Usage: NoiseGenerator original size seed "
+                    + "noise outOriginal outComparative");
+            System.exit(-1);
+        }
+        Charset charset = Charset.defaultCharset();
+        NoiseGenerator g = new NoiseGenerator(
+                DocumentReader.read(new File(args[0]), charset),
+                Long.parseLong(args[2]));
+        g.setNoise(Double.parseDouble(args[3]));
+        long size = parseSize(args[1]);
+        try (Writer w = newWriter(new File(args[4]), charset)) {
+            g.writeOriginal(w, size);
+        }
+        try (Writer w = newWriter(new File(args[5]), charset)) {
+            g.writeComparative(w, size);
+        }
+        System.out.println(g);
+    }
+
+    /**
+     * Return the number of charter of the last generated original.
+     * <p>
+     * @return Number of charter of the original
+     */
+    public long getNbCharacter() {
+        return nbCharacter;
+    }
+
+    /**
+     * Return the number of dropped line in the last generated comparative.
+     * <p>
+     * @return Number of dropped line
+     */
+    public long getNbDroppedLine() {
+        return nbDroppedLine;
+    }
+
+    /**
+     * Return the number of word of the dropped lines in the last generated
+     * comparative.
+     * <p>
+     * @return Number of dropped word
+     */
+    public long getNbDroppedWord() {
+        return nbDroppedWord;
+    }
+
+    /**
+     * Return the number of inserted charter in the last generated
+     * comparative.
+     * <p>
+     * @return Number of inserted charter
+     */
+    public long getNbInsertion() {
+        return nbInsertion;
+    }
+
+    /**
+     * Return the number of merged words in the last generated comparative.
+     * <p>
+     * @return Number of merge
+     */
+    public long getNbMerge() {
+        return nbMerge;
+    }
+
+    /**
+     * Return the number of block moved after the next block in the last
+     * generated comparative.
+     * <p>
+     * @return Number of reordered block
+     */
+    public long getNbReorderedBlock() {
+        return nbReorderedBlock;
+    }
+
+    /**
+     * Return the number of split word in the last generated comparative.
+     * <p>
+     * @return Number of split
+     */
+    public long getNbSplit() {
+        return nbSplit;
+    }
+
+    /**
+     * Return the number of substituted charter in the last generated
+     * comparative.
+     * <p>
+     * @return Number of substitution
+     */
+    public long getNbSubstitution() {
+        return nbSubstitution;
+    }
+
+    /**
+     * Return the number of word of the last generated original.
+     * <p>
+     * @return Number of word of the original
+     */
+    public long getNbWord() {
+        return nbWord;
+    }
+
+    /**
+     * Open a reader generating the comparative document on demand. The counts
+     * of errors are complete once the reader is at the end of the document.
+     * <p>
+     * @param size Number of charter of the original document
+     * @return Reader of the comparative document
+     */
+    public Reader openComparative(long size) {
+        return new GeneratorReader(new Generation(size, true));
+    }
+
+    /**
+     * Open a reader generating the original document on demand. The counts
+     * of charters and words are complete once the reader is at the end of
+     * the document.
+     * <p>
+     * @param size Number of charter of the original document
+     * @return Reader of the original document
+     */
+    public Reader openOriginal(long size) {
+        return new GeneratorReader(new Generation(size, false));
+    }
+
+    /**
+     * Set the number of line of a reordered block.
+     * <p>
+     * @param blockSize Number of line, at least 1
+     */
+    public void setBlockSize(int blockSize) {
+        this.blockSize = Math.max(blockSize, 1);
+    }
+
+    /**
+     * Set the rate of dropped lines.
+     * <p>
+     * @param rate Rate by line, from 0 to 1
+     */
+    public void setDroppedLineRate(double rate) {
+        droppedLineRate = rate;
+    }
+
+    /**
+     * Set the rate of inserted charters.
+     * <p>
+     * @param rate Rate by charter, from 0 to 1
+     */
+    public void setInsertionRate(double rate) {
+        insertionRate = rate;
+    }
+
+    /**
+     * Set the rate of merged words.
+     * <p>
+     * @param rate Rate by space between two words, from 0 to 1
+     */
+    public void setMergeRate(double rate) {
+        mergeRate = rate;
+    }
+
+    /**
+     * Set all the rates from a single noise level: the substitution rate is
+     * the noise, the other rates are lower, like in a real OCR output.
+     * <p>
+     * @param noise Rate of substitution, from 0 to 1
+     */
+    public void setNoise(double noise) {
+        substitutionRate = noise;
+        insertionRate = noise / 4;
+        splitRate = noise / 8;
+        mergeRate = noise / 2;
+        droppedLineRate = noise / 10;
+        reorderRate = noise / 20;
+    }
+
+    /**
+     * Set the rate of blocks moved after the next block.
+     * <p>
+     * @param rate Rate by block, from 0 to 1
+     */
+    public void setReorderRate(double rate) {
+        reorderRate = rate;
+    }
+
+    /**
+     * Set the rate of split words.
+     * <p>
+     * @param rate Rate by charter inside a word, from 0 to 1
+     */
+    public void setSplitRate(double rate) {
+        splitRate = rate;
+    }
+
+    /**
+     * Set the rate of substituted charters.
+     * <p>
+     * @param rate Rate by letter or digit, from 0 to 1
+     */
+    public void setSubstitutionRate(double rate) {
+        substitutionRate = rate;
+    }
+
+    @Override
+    public String toString() {
+        return "Characters: " + nbCharacter + ", words: " + nbWord
+                + ", substitutions: " + nbSubstitution
+                + ", splits: " + nbSplit + ", merges: " + nbMerge
+                + ", insertions: " + nbInsertion
+                + ", dropped lines: " + nbDroppedLine
+                + " (" + nbDroppedWord + " words)"
+                + ", reordered blocks: " + nbReorderedBlock;
+    }
+
+    /**
+     * Write the comparative document.
+     * <p>
+     * @param out Destination of the document
+     * @param size Number of charter of the original document
+     * @throws IOException The document can not be written
+     */
+    public void writeComparative(Appendable out, long size)
+            throws IOException {
+        write(out, new Generation(size, true));
+    }
+
+    /**
+     * Write the original document: the original text repeated until the size
+     * is reached.
+     * <p>
+     * @param out Destination of the document
+     * @param size Number of charter of the original document
+     * @throws IOException The document can not be written
+     */
+    public void writeOriginal(Appendable out, long size) throws IOException {
+        write(out, new Generation(size, false));
+    }
+
+    /**
+     * Count the words of a line.
+     * <p>
+     * @param line Line
+     * @return Number of word
+     */
+    private static int countWords(String line) {
+        int n = 0;
+        boolean inWord = false;
+        for (int i = 0; i < line.length(); ++i) {
+            boolean w = Character.isLetterOrDigit(line.charAt(i));
+            if (w && !inWord) {
+                ++n;
+            }
+            inWord = w;
+        }
+        return n;
+    }
+
+    /**
+     * Create a buffered writer which replaces the unmappable charters.
+     * <p>
+     * @param f File to write
+     * @param charset Charset of the file
+     * @return Writer, to be closed by the caller
+     * @throws IOException The file can not be created
+     */
+    private static Writer newWriter(File f, Charset charset)
+            throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(
+                Files.newOutputStream(f.toPath()), charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE)), 1 << 16);
+    }
+
+    /**
+     * Parse a size with an optional K, M or G suffix.
+     * <p>
+     * @param s Size
+     * @return Number of charter
+     */
+    private static long parseSize(String s) {
+        String u = s.trim().toUpperCase();
+        int shift = u.endsWith("K") ? 10 : u.endsWith("M") ? 20
+                : u.endsWith("G") ? 30 : 0;
+        if (shift > 0) {
+            u = u.substring(0, u.length() - 1);
+        }
+        return Long.parseLong(u) << shift;
+    }
+
+    /**
+     * Return the charter OCR may read instead of a charter.
+     * <p>
+     * @param c Charter
+     * @param r Random generator
+     * @return Substituted charter
+     */
+    private static char substitute(char c, Random r) {
+        for (String group : CONFUSIONS) {
+            int i = group.indexOf(c);
+            if (i >= 0) {
+                return group.charAt((i + 1 + r.nextInt(group.length() - 1))
+                        % group.length());
+            }
+        }
+        char s = (char) ('a' + r.nextInt(26));
+        return s == c ? 'x' : s;
+    }
+
+    /**
+     * Write a whole document.
+     * <p>
+     * @param out Destination of the document
+     * @param g Generation of the document
+     * @throws IOException The document can not be written
+     */
+    private static void write(Appendable out, Generation g)
+            throws IOException {
+        StringBuilder sb = new StringBuilder();
+        while (g.next(sb)) {
+            out.append(sb);
+            sb.setLength(0);
+        }
+    }
+
+    /**
+     * Generation of a document, block of lines by block of lines.
+     */
+    private class Generation {
+
+        //Block held to be written after the next block
+        private final StringBuilder held = new StringBuilder();
+        //Index of the next line of the original text
+        private int line = 0;
+        //Number of charter of the original generated so far
+        private long nbCharacter = 0;
+        //Number of word of the original generated so far
+        private long nbWord = 0;
+        //True to add errors
+        private final boolean noise;
+        //Random generator
+        private final Random random = new Random(seed);
+        //Number of charter of the original still to generate
+        private long remaining;
+
+        /**
+         * Start a generation and reset the counts it publishes: the counts of
+         * the original for an original, the counts of errors for a
+         * comparative.
+         * <p>
+         * @param size Number of charter of the original document
+         * @param noise True to add errors
+         */
+        Generation(long size, boolean noise) {
+            this.noise = noise;
+            remaining = size;
+            if (!noise) {
+                NoiseGenerator.this.nbCharacter = 0;
+                NoiseGenerator.this.nbWord = 0;
+            } else {
+                nbDroppedLine = 0;
+                nbDroppedWord = 0;
+                nbInsertion = 0;
+                nbMerge = 0;
+                nbReorderedBlock = 0;
+                nbSplit = 0;
+                nbSubstitution = 0;
+            }
+        }
+
+        /**
+         * Generate the next block of lines.
+         * <p>
+         * @param out Destination of the text
+         * @return False if the end of the document is reached
+         */
+        boolean next(StringBuilder out) {
+            if (remaining <= 0) {
+                if (held.length() == 0) {
+                    return false;
+                }
+                out.append(held);
+                held.setLength(0);
+                return true;
+            }
+            StringBuilder block = noise && held.length() == 0
+                    && random.nextDouble() < reorderRate ? held : out;
+            for (int i = 0; i < blockSize && remaining > 0; ++i) {
+                String s = lines[line];
+                line = (line + 1) % lines.length;
+                if (s.length() > remaining) {
+                    //Cut the last line at the requested size
+                    s = s.substring(0, (int) remaining);
+                }
+                remaining -= s.length();
+                nbCharacter += s.length();
+                int words = countWords(s);
+                nbWord += words;
+                if (!noise) {
+                    block.append(s);
+                } else if (random.nextDouble() < droppedLineRate) {
+                    ++nbDroppedLine;
+                    nbDroppedWord += words;
+                } else {
+                    appendNoisy(block, s);
+                }
+            }
+            if (!noise) {
+                //Only the original publishes the counts of the original
+                NoiseGenerator.this.nbCharacter = nbCharacter;
+                NoiseGenerator.this.nbWord = nbWord;
+            }
+            if (block == held) {
+                ++nbReorderedBlock;
+            } else if (held.length() > 0) {
+                //The next block is written, write the held block after it
+                out.append(held);
+                held.setLength(0);
+            }
+            return true;
+        }
+
+        /**
+         * Append a line with errors.
+         * <p>
+         * @param out Destination of the text
+         * @param s Line
+         */
+        private void appendNoisy(StringBuilder out, String s) {
+            for (int i = 0; i < s.length(); ++i) {
+                char c = s.charAt(i);
+                boolean letter = Character.isLetterOrDigit(c);
+                if (c == ' ' && i > 0 && i + 1 < s.length()
+                        && Character.isLetterOrDigit(s.charAt(i - 1))
+                        && Character.isLetterOrDigit(s.charAt(i + 1))
+                        && random.nextDouble() < mergeRate) {
+                    ++nbMerge;
+                    continue;
+                }
+                if (letter && random.nextDouble() < substitutionRate) {
+                    ++nbSubstitution;
+                    c = substitute(c, random);
+                }
+                out.append(c);
+                if (letter && i + 1 < s.length()
+                        && Character.isLetterOrDigit(s.charAt(i + 1))
+                        && random.nextDouble() < splitRate) {
+                    ++nbSplit;
+                    out.append(' ');
+                }
+                if (c != '\n' && random.nextDouble() < insertionRate) {
+                    ++nbInsertion;
+                    out.append(INSERTIONS.charAt(
+                            random.nextInt(INSERTIONS.length())));
+                }
+            }
+        }
+    }
+
+    /**
+     * Reader generating a document on demand.
+     */
+    private static class GeneratorReader extends Reader {
+
+        //Generated text not read yet
+        private final StringBuilder buffer = new StringBuilder();
+        //True once the end of the document is reached
+        private boolean end = false;
+        //Generation of the document
+        private final Generation generation;
+        //Position of the next charter to read in the buffer
+        private int position = 0;
+
+        /**
+         * Create a new GeneratorReader.
+         * <p>
+         * @param generation Generation of the document
+         */
+        GeneratorReader(Generation generation) {
+            this.generation = generation;
+        }
+
+        @Override
+        public void close() {
+            end = true;
+            buffer.setLength(0);
+            position = 0;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) {
+            while (position == buffer.length()) {
+                if (end) {
+                    return -1;
+                }
+                buffer.setLength(0);
+                position = 0;
+                end = !generation.next(buffer);
+            }
+            int n = Math.min(len, buffer.length() - position);
+            buffer.getChars(position, position + n, cbuf, off);
+            position += n;
+            return n;
+        }
+    }
+}
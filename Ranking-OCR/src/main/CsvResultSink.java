@@ -0,0 +1,248 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package main;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write the results in a CSV file.
+ * <p>
+ * The file is opened once and the rows are appended through a buffered
+ * channel. The buffer is written when a number of rows is reached, or by a
+ * timer when the oldest buffered row waits for the maximum delay, so the rows
+ * of a slow batch are written in time. Closing the sink writes the buffer and
+ * forces the file content on the disk.
+ * <p>
+ * The rows are ended by CR LF. A value containing the separator, a quote or a
+ * line break is quoted. A file which isn't empty must start with the same
+ * title of the columns, so the rows appended have the columns of the file.
+ * <p>
+ * @author Nils Ryter
+ */
+public class CsvResultSink implements ResultSink {
+
+    //File channel
+    private final FileChannel channel;
+    //True once the sink is closed
+    private boolean closed = false;
+    //Error of the last write by the timer, thrown by the next call
+    private IOException failure = null;
+    //Maximum delay between two writes of the buffer, in milliseconds
+    private final long flushMillis;
+    //Maximum number of row kept in the buffer
+    private final int flushRows;
+    //Time of the oldest row in the buffer, or of the last write if empty
+    private long lastFlush;
+    //Number of row in the buffer
+    private int nbRow = 0;
+    //Separator charter
+    private final char separator;
+    //Timer writing the buffer after the maximum delay
+    private final ScheduledExecutorService timer;
+    //Buffered writer on the channel
+    private final Writer writer;
+
+    /**
+     * Open a CSV file to append results.
+     * <p>
+     * @param f CSV file, created if it doesn't exist
+     * @param separator Separator charter
+     * @param header Title of the columns, written if the file is empty
+     * @param flushRows Maximum number of row kept in the buffer
+     * @param flushMillis Maximum delay between two writes of the buffer, in
+     * milliseconds
+     * @throws IOException File can not be opened, or doesn't start with the
+     * title of the columns
+     */
+    public CsvResultSink(File f, char separator, String[] header,
+            int flushRows, long flushMillis) throws IOException {
+        this.separator = separator;
+        this.flushRows = Math.max(flushRows, 1);
+        this.flushMillis = flushMillis;
+        if (f.length() > 0) {
+            checkHeader(f, header);
+        }
+        channel = FileChannel.open(f.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        writer = Channels.newWriter(channel,
+                Charset.defaultCharset().newEncoder(), 1 << 16);
+        lastFlush = System.currentTimeMillis();
+        if (channel.size() == 0) {
+            write(header);
+            flush();
+        }
+        timer = Executors.newSingleThreadScheduledExecutor((r) -> {
+            Thread t = new Thread(r, "CSV flush " + f.getName());
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(this.flushMillis / 4, 1);
+        timer.scheduleWithFixedDelay(this::flushLate, period, period,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Write the buffer, force the file content on the disk and close the file.
+     * Does nothing if the sink is already closed.
+     * <p>
+     * @throws IOException File can not be written
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            timer.shutdownNow();
+            try {
+                writer.flush();
+                channel.force(true);
+            } finally {
+                writer.close();
+            }
+            throwFailure();
+        }
+    }
+
+    /**
+     * Check that a file starts with the title of the columns.
+     * <p>
+     * @param f CSV file
+     * @param header Title of the columns
+     * @throws IOException File can not be read, or has other columns
+     */
+    private void checkHeader(File f, String[] header) throws IOException {
+        String first;
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                Files.newInputStream(f.toPath()), Charset.defaultCharset()))) {
+            first = in.readLine();
+        }
+        String expected = format(header);
+        if (!expected.equals(first)) {
+            throw new IOException("The columns of " + f.getPath()
+                    + " differ from the columns of the results, write the "
+                    + "results in another file");
+        }
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        throwFailure();
+        writer.flush();
+        nbRow = 0;
+        lastFlush = System.currentTimeMillis();
+    }
+
+    @Override
+    public synchronized void write(String... fields) throws IOException {
+        throwFailure();
+        writer.write(format(fields));
+        writer.write("\r\n");
+        if (nbRow == 0) {
+            lastFlush = System.currentTimeMillis();
+        }
+        if (++nbRow >= flushRows) {
+            flush();
+        }
+    }
+
+    /**
+     * Write the buffer if its oldest row waits for the maximum delay. Called
+     * by the timer.
+     */
+    private synchronized void flushLate() {
+        if (closed || nbRow == 0 || failure != null
+                || System.currentTimeMillis() - lastFlush < flushMillis) {
+            return;
+        }
+        try {
+            flush();
+        } catch (IOException ex) {
+            failure = ex;
+        }
+    }
+
+    /**
+     * Throw the error of the last write by the timer, once.
+     * <p>
+     * @throws IOException File could not be written by the timer
+     */
+    private void throwFailure() throws IOException {
+        IOException ex = failure;
+        failure = null;
+        if (ex != null) {
+            throw ex;
+        }
+    }
+
+    /**
+     * Format a row, without its line end.
+     * <p>
+     * @param fields Values of the row
+     * @return Row
+     */
+    private String format(String[] fields) {
+        StringBuilder row = new StringBuilder();
+        for (int i = 0; i < fields.length; ++i) {
+            if (i > 0) {
+                row.append(separator);
+            }
+            appendField(row, fields[i]);
+        }
+        return row.toString();
+    }
+
+    /**
+     * Append a value, quoted if needed.
+     * <p>
+     * @param row Row to append to
+     * @param s Value to append
+     */
+    private void appendField(StringBuilder row, String s) {
+        if (s == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < s.length() && !quote; ++i) {
+            char c = s.charAt(i);
+            quote = c == separator || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            row.append(s);
+            return;
+        }
+        row.append('"');
+        for (int i = 0; i < s.length(); ++i) {
+            char c = s.charAt(i);
+            if (c == '"') {
+                row.append('"');
+            }
+            row.append(c);
+        }
+        row.append('"');
+    }
+}
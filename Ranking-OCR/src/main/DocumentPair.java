@@ -0,0 +1,224 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package main;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Original document and document to compare to it.
+ * <p>
+ * @author Nils Ryter
+ */
+public class DocumentPair {
+
+    //Document to compare
+    private final File comparative;
+    //Original document
+    private final File original;
+
+    /**
+     * Create a new DocumentPair.
+     * <p>
+     * @param original Original document
+     * @param comparative Document to compare to original
+     */
+    public DocumentPair(File original, File comparative) {
+        this.original = original;
+        this.comparative = comparative;
+    }
+
+    /**
+     * Pair an original document with candidate documents to compare to it.
+     * <p>
+     * A candidate directory is replaced by its files, sorted by name, except
+     * the original document.
+     * <p>
+     * @param original Original document
+     * @param candidates Files or directories of the documents to compare
+     * @return Pairs of documents
+     * @throws IOException A candidate is neither a file nor a directory which
+     * can be listed
+     */
+    public static List<DocumentPair> fromCandidates(File original,
+            File... candidates) throws IOException {
+        List<DocumentPair> pairs = new ArrayList<>();
+        for (File c : candidates) {
+            if (c.isFile()) {
+                pairs.add(new DocumentPair(original, c));
+                continue;
+            }
+            File[] lst = c.listFiles(File::isFile);
+            if (lst == null) {
+                throw new IOException("Can not list the directory : " + c);
+            }
+            Arrays.sort(lst);
+            for (File f : lst) {
+                if (!f.getAbsoluteFile().equals(original.getAbsoluteFile())) {
+                    pairs.add(new DocumentPair(original, f));
+                }
+            }
+        }
+        return pairs;
+    }
+
+    /**
+     * Pair the files of two directories by their name.
+     * <p>
+     * Files of the original directory without a file of the same name in the
+     * comparative directory are ignored.
+     * <p>
+     * @param originals Directory of the original documents
+     * @param comparatives Directory of the documents to compare
+     * @return Pairs sorted by file name
+     * @throws IOException A directory can not be listed
+     */
+    public static List<DocumentPair> fromDirectories(File originals,
+            File comparatives) throws IOException {
+        File[] lst = originals.listFiles(File::isFile);
+        if (lst == null || !comparatives.isDirectory()) {
+            throw new IOException("Can not list the directories : "
+                    + originals + ", " + comparatives);
+        }
+        Arrays.sort(lst);
+        List<DocumentPair> pairs = new ArrayList<>(lst.length);
+        for (File f : lst) {
+            File c = new File(comparatives, f.getName());
+            if (c.isFile()) {
+                pairs.add(new DocumentPair(f, c));
+            }
+        }
+        return pairs;
+    }
+
+    /**
+     * Read the pairs listed in a manifest file.
+     * <p>
+     * Each line of the manifest gives the original file name and the
+     * comparative file name, separated by a tabulation, a comma or a
+     * semicolon. Names can be quoted, a quoted name can hold separators and
+     * doubled quotes. Relative names are resolved from the manifest
+     * directory. Empty lines and lines beginning by # are ignored.
+     * <p>
+     * @param manifest Manifest file
+     * @param charset Charset of the manifest
+     * @return Pairs in the manifest order
+     * @throws IOException The manifest can not be read or a line is malformed
+     */
+    public static List<DocumentPair> fromManifest(File manifest,
+            Charset charset) throws IOException {
+        List<DocumentPair> pairs = new ArrayList<>();
+        File dir = manifest.getAbsoluteFile().getParentFile();
+        try (BufferedReader b = Files.newBufferedReader(manifest.toPath(),
+                charset)) {
+            int nb = 0;
+            while (true) {
+                String line = b.readLine();
+                ++nb;
+                if (line == null) {
+                    break;
+                } else if (line.trim().isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                List<String> s = split(line);
+                if (s == null || s.size() < 2) {
+                    throw new IOException("Malformed manifest line " + nb
+                            + " : " + line);
+                }
+                pairs.add(new DocumentPair(resolve(dir, s.get(0)),
+                        resolve(dir, s.get(1))));
+            }
+        }
+        return pairs;
+    }
+
+    /**
+     * Return the document to compare.
+     * <p>
+     * @return Comparative file
+     */
+    public File getComparative() {
+        return comparative;
+    }
+
+    /**
+     * Return the original document.
+     * <p>
+     * @return Original file
+     */
+    public File getOriginal() {
+        return original;
+    }
+
+    /**
+     * Resolve a file name of the manifest.
+     * <p>
+     * @param dir Directory of the manifest
+     * @param name File name, unquoted
+     * @return File
+     */
+    private static File resolve(File dir, String name) {
+        File f = new File(name);
+        return f.isAbsolute() ? f : new File(dir, name);
+    }
+
+    /**
+     * Split a line of the manifest in file names. The separators are the
+     * tabulations if the line has one, the commas and semicolons otherwise.
+     * The separators in quotes are part of the names.
+     * <p>
+     * @param line Line of the manifest
+     * @return Names, trimmed and unquoted, or null if a quote isn't closed
+     */
+    private static List<String> split(String line) {
+        String separators = line.indexOf('\t') >= 0 ? "\t" : ",;";
+        List<String> names = new ArrayList<>();
+        StringBuilder name = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); ++i) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    name.append(c);
+                } else if (i + 1 < line.length()
+                        && line.charAt(i + 1) == '"') {
+                    //Doubled quote in a quoted name
+                    name.append(c);
+                    ++i;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"' && name.toString().trim().isEmpty()) {
+                quoted = true;
+                name.setLength(0);
+            } else if (separators.indexOf(c) >= 0) {
+                names.add(name.toString().trim());
+                name.setLength(0);
+            } else {
+                name.append(c);
+            }
+        }
+        names.add(name.toString().trim());
+        return quoted ? null : names;
+    }
+}
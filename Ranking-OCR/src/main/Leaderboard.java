@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package main;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import ranking.RankResult;
+
+/**
+ * Leaderboard of the documents compared to the same original, usually the
+ * outputs of several OCR engines or configurations, from the best to the
+ * worst.
+ * <p>
+ * Only the best entries are kept, in a heap whose head is the worst entry
+ * kept, so selecting the k best of N candidates costs O(N log k). The entries
+ * are sorted by error rate, then by candidate path. Entries can be added by
+ * several threads.
+ * <p>
+ * @author Nils Ryter
+ */
+public class Leaderboard {
+
+    //Order of the entries, the best first
+    private static final Comparator<Entry> BEST = Comparator.comparingDouble(
+            (Entry e) -> e.getResult().getRate()).thenComparing(
+                    (Entry e) -> e.getCandidate().getPath());
+    //Best entries, the worst first
+    private final PriorityQueue<Entry> entries;
+    //Number of candidate added
+    private long nbCandidate = 0;
+    //Maximum number of entries kept, 0 for all
+    private final int top;
+
+    /**
+     * Create a new Leaderboard.
+     * <p>
+     * @param top Maximum number of entries kept, 0 for all
+     */
+    public Leaderboard(int top) {
+        this.top = top;
+        entries = new PriorityQueue<>(BEST.reversed());
+    }
+
+    /**
+     * Add the result of a candidate.
+     * <p>
+     * @param candidate Document compared to the original
+     * @param result Result of the comparison
+     * @param nanos Time spent to compare the documents, in nanoseconds
+     */
+    public synchronized void add(File candidate, RankResult result,
+            long nanos) {
+        ++nbCandidate;
+        entries.add(new Entry(candidate, result, nanos));
+        if (top > 0 && entries.size() > top) {
+            entries.poll();
+        }
+    }
+
+    /**
+     * Return the entries kept, from the best to the worst.
+     * <p>
+     * @return Entries
+     */
+    public synchronized List<Entry> getEntries() {
+        List<Entry> list = new ArrayList<>(entries);
+        Collections.sort(list, BEST);
+        return list;
+    }
+
+    /**
+     * Return the number of candidate added.
+     * <p>
+     * @return Number of candidate
+     */
+    public synchronized long getNbCandidate() {
+        return nbCandidate;
+    }
+
+    /**
+     * Return the maximum number of entries kept.
+     * <p>
+     * @return Number of entries, 0 for all
+     */
+    public int getTop() {
+        return top;
+    }
+
+    /**
+     * Return the leaderboard as a table, one line per entry.
+     * <p>
+     * @return Table of the entries
+     */
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+        s.append(String.format(Locale.ROOT, "%4s %12s %10s %10s %10s  %s%n",
+                "Rank", "Difference %", "Errors", "Words", "Time ms",
+                "Candidate"));
+        int rank = 0;
+        for (Entry e : getEntries()) {
+            RankResult r = e.getResult();
+            s.append(String.format(Locale.ROOT,
+                    "%4d %12.3f %10d %10d %10.1f  %s%n", ++rank, r.getRate(),
+                    r.getNbError(), r.getNbWord(), e.getMillis(),
+                    e.getCandidate().getName()));
+        }
+        return s.toString();
+    }
+
+    /**
+     * Result of a candidate.
+     */
+    public static class Entry {
+
+        //Document compared to the original
+        private final File candidate;
+        //Time spent to compare the documents, in nanoseconds
+        private final long nanos;
+        //Result of the comparison
+        private final RankResult result;
+
+        /**
+         * Create a new Entry.
+         * <p>
+         * @param candidate Document compared to the original
+         * @param result Result of the comparison
+         * @param nanos Time spent to compare the documents, in nanoseconds
+         */
+        Entry(File candidate, RankResult result, long nanos) {
+            this.candidate = candidate;
+            this.result = result;
+            this.nanos = nanos;
+        }
+
+        /**
+         * Return the document compared to the original.
+         * <p>
+         * @return Candidate document
+         */
+        public File getCandidate() {
+            return candidate;
+        }
+
+        /**
+         * Return the time spent to compare the documents.
+         * <p>
+         * @return Time in milliseconds
+         */
+        public double getMillis() {
+            return nanos / 1e6;
+        }
+
+        /**
+         * Return the result of the comparison.
+         * <p>
+         * @return Result
+         */
+        public RankResult getResult() {
+            return result;
+        }
+    }
+}
@@ -16,17 +16,33 @@
  */
 package main;
 
+import events.DocumentContext;
+import events.RankEvent;
+import events.ReadEvent;
+import events.WriteEvent;
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.PrintWriter;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.file.InvalidPathException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
-import libraries.PackageClassList;
+import java.util.Map;
+import java.util.Random;
+import java.util.ServiceConfigurationError;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.management.JMException;
+import libraries.DocumentReader;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
 import org.apache.commons.cli.GnuParser;
@@ -34,7 +50,16 @@ import org.apache.commons.cli.HelpFormatter;
 import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
+import ranking.AnchoredRanker;
+import ranking.PreparedDocument;
+import ranking.RankResult;
 import ranking.Ranker;
+import ranking.RankerDescriptor;
+import ranking.RankerRegistry;
+import ranking.RankingStats;
+import ranking.RateEstimator;
+import ranking.SegmentRanker;
+import ranking.TokenCache;
 
 /**
  *
@@ -42,10 +67,31 @@ import ranking.Ranker;
  */
 public class RankerOCR {
 
+    //Charset of the input documents
+    private static Charset encoding = Charset.defaultCharset();
+    //CSV title of a leaderboard
+    private static final String[] LEADERBOARD_TITLE = {"Rank",
+        "Difference %", "Errors", "Words", "Time ms", "Ranker name",
+        "Original name", "Comparative name", "Comparative path",
+        "Date & Time"};
+    //CSV title of the results
+    private static final String[] RESULT_TITLE = {"Difference %",
+        "Ranker name", "Original name", "Comparative name", "Original path",
+        "Comparative path", "Date & Time"};
+    //Cache of the results of the comparisons, null if not used
+    private static ResultCache resultCache = null;
+    //Cache of the prepared original documents, null if not used
+    private static TokenCache tokenCache = null;
     //Show help on the CLI
     private static final HelpFormatter hf = new HelpFormatter();
+    //Estimator of the error rate of a sampled batch, null if not sampled
+    private static RateEstimator estimator = null;
+    //Maximum error rate of a passed comparison, negative to count all errors
+    private static double maxRate = -1;
     //Manage options of CLI
     private static final Options options = new Options();
+    //Split each pair of documents at its anchor words
+    private static boolean split = false;
     //Wide of the CLI screen
     private static final int width = 50;
 
@@ -53,21 +99,93 @@ public class RankerOCR {
         //<editor-fold defaultstate="collapsed" desc="Initialization">
         //Adding option
         Option o = new Option("", "");
+        options.addOption("cache", true,
+                "Set the directory where the tokenized original documents "
+                + "are kept for the next runs");
+        options.addOption("cacheSize", true,
+                "Set the maximum size in megabytes of the cache directory "
+                + "(default 1024)");
+        options.addOption("encoding", true,
+                "Set the charset of the input documents (default is the "
+                + "platform charset)");
+        options.addOption("flushMillis", true,
+                "Set the maximum delay in milliseconds before the results are "
+                + "written to the CSV out file (default 1000)");
+        options.addOption("flushRows", true,
+                "Set the maximum number of results kept before they are "
+                + "written to the CSV out file (default 1000)");
         options.addOption("gui", false, "Launch a graphical user interface");
         options.addOption("indoc1", true,
                 "Set the file name of the original document");
-        options.getOption("indoc1").setRequired(true);
         options.addOption("indoc2", true,
                 "Set the file name of the document to compare");
-        options.getOption("indoc2").setRequired(true);
+        options.addOption("indir1", true,
+                "Set the directory of the original documents");
+        options.addOption("indir2", true,
+                "Set the directory of the documents to compare, paired with "
+                + "the original documents by file name");
+        Option leaderboard = new Option("leaderboard", true,
+                "Rank the files, or the files of the directories, given as "
+                + "arguments against the original document -indoc1, and "
+                + "print them from the best to the worst with the time spent "
+                + "on each");
+        leaderboard.setArgs(Option.UNLIMITED_VALUES);
+        options.addOption(leaderboard);
+        options.addOption("manifest", true,
+                "Set the file listing the documents to compare, one original "
+                + "and one comparative file name per line, in the charset of "
+                + "the input documents");
+        options.addOption("maxError", true,
+                "Set the maximum error rate in percent of a passed "
+                + "comparison, the comparisons stop as soon as they pass or "
+                + "fail and a PASS or FAIL verdict is written (a leaderboard "
+                + "is still ranked exactly)");
         options.addOption("ranker", true,
-                "Set the ranker used for the comparison");
+                "Set the ranker used for the comparison, by name or alias");
         options.addOption("help", false, "Show the help");
         options.addOption("outdoc", true,
                 "Set the document where write the results as CSV");
-        options.getOption("outdoc").setRequired(true);
+        options.addOption("resultCache", true,
+                "Enable the result cache and set the file where the results "
+                + "are kept for the next runs, so the duplicated pairs of "
+                + "documents are not compared again");
+        options.addOption("resultCacheSize", true,
+                "Enable the result cache and set the maximum number of "
+                + "results kept in memory to answer the duplicated pairs of "
+                + "documents of a batch, 0 to compare all the pairs (default "
+                + "10000)");
+        options.addOption("sample", true,
+                "Rank a random sample of the batch, given as a number of "
+                + "pairs or a percentage (e.g. 5%), and print the estimated "
+                + "error rate of the batch with its 95% confidence interval, "
+                + "not with -maxError or -split");
+        options.addOption("seed", true,
+                "Set the seed of the random sample, to draw the same sample "
+                + "again (default random)");
         options.addOption("separator", true,
                 "Set the delimiter char use in the CSV out file");
+        options.addOption("server", true,
+                "Start a ranking server on a port of the loopback interface, "
+                + "the documents are sent to the path /rank as HTTP "
+                + "parameters and the results returned as JSON");
+        options.addOption("split", false,
+                "Split each pair of documents at the words appearing once in "
+                + "both, and compare the segments on the threads, to rank a "
+                + "very large document on several processors");
+        options.addOption("stats", false,
+                "Print the time spent in each phase and the throughput when "
+                + "the ranking ends, the statistics are also published "
+                + "through JMX");
+        options.addOption("stream", false,
+                "Read the documents while comparing them, to rank very large "
+                + "documents with a bounded memory");
+        options.addOption("top", true,
+                "Set the number of best documents kept in a leaderboard, 0 "
+                + "for all (default 0)");
+        options.addOption("threads", true,
+                "Set the number of thread used to rank a batch, a "
+                + "leaderboard or the segments of a split document, 0 for all "
+                + "the processors (default 1, 0 for a leaderboard)");
         //Help formater
         hf.setOptPrefix("-");
         //</editor-fold>
@@ -82,28 +200,114 @@ public class RankerOCR {
      * </ul>
      * <b>Options list:</b>
      * <ul>
+     * <li>-cache [arg] Set the directory where the tokenized original
+     * documents are kept for the next runs</li>
+     * <li>-cacheSize [arg] Set the maximum size in megabytes of the cache
+     * directory (default 1024)</li>
+     * <li>-encoding [arg] Set the charset of the input documents (default is
+     * the platform charset)</li>
+     * <li>-flushMillis [arg] Set the maximum delay in milliseconds before the
+     * results are written to the CSV out file (default 1000)</li>
+     * <li>-flushRows [arg] Set the maximum number of results kept before they
+     * are written to the CSV out file (default 1000)</li>
      * <li>-gui Launch a graphical user interface</li>
      * <li>-help Show the help</li>
      * <li>-indoc1 [arg] Set the file name of the original document</li>
      * <li>-indoc2 [arg] Set the file name of the document to compare</li>
-     * <li>-ranker [arg] Set the ranker used for the comparison</li>
+     * <li>-indir1 [arg] Set the directory of the original documents</li>
+     * <li>-indir2 [arg] Set the directory of the documents to compare, paired
+     * with the original documents by file name</li>
+     * <li>-leaderboard [args] Rank the files, or the files of the
+     * directories, given as arguments against the original document -indoc1,
+     * and print them from the best to the worst with the time spent on
+     * each</li>
+     * <li>-manifest [arg] Set the file listing the documents to compare, one
+     * original and one comparative file name per line, in the charset of the
+     * input documents</li>
+     * <li>-maxError [arg] Set the maximum error rate in percent of a passed
+     * comparison, the comparisons stop as soon as they pass or fail and a
+     * PASS or FAIL verdict is written (a leaderboard is still ranked
+     * exactly)</li>
+     * <li>-ranker [arg] Set the ranker used for the comparison, by name or
+     * alias</li>
      * <li>-outdoc [arg] Set the document where write the results</li>
+     * <li>-resultCache [arg] Enable the result cache and set the file where
+     * the results are kept for the next runs, so the duplicated pairs of
+     * documents are not compared again</li>
+     * <li>-resultCacheSize [arg] Enable the result cache and set the maximum
+     * number of results kept in memory to answer the duplicated pairs of
+     * documents of a batch, 0 to compare all the pairs (default 10000)</li>
+     * <li>-sample [arg] Rank a random sample of the batch, given as a number
+     * of pairs or a percentage (e.g. 5%), and print the estimated error rate
+     * of the batch with its 95% confidence interval, not with -maxError or
+     * -split</li>
+     * <li>-seed [arg] Set the seed of the random sample, to draw the same
+     * sample again (default random)</li>
      * <li>-separator [arg] Set the delimiter char use in the CSV out file</li>
+     * <li>-server [arg] Start a ranking server on a port of the loopback
+     * interface, the documents are sent to the path /rank as HTTP parameters
+     * and the results returned as JSON</li>
+     * <li>-split Split each pair of documents at the words appearing once in
+     * both, and compare the segments on the threads, to rank a very large
+     * document on several processors</li>
+     * <li>-stats Print the time spent in each phase and the throughput when
+     * the ranking ends, the statistics are also published through JMX</li>
+     * <li>-stream Read the documents while comparing them, to rank very
+     * large documents with a bounded memory</li>
+     * <li>-threads [arg] Set the number of thread used to rank a batch, a
+     * leaderboard or the segments of a split document, 0 for all the
+     * processors (default 1, 0 for a leaderboard)</li>
+     * <li>-top [arg] Set the number of best documents kept in a leaderboard, 0
+     * for all (default 0)</li>
      * </ul>
+     * A single comparison needs -indoc1, -indoc2 and -outdoc. A batch of
+     * comparisons needs -manifest or -indir1 and -indir2, plus -outdoc. All the
+     * results of a batch are appended to the same CSV file. A leaderboard needs
+     * -indoc1 and -leaderboard, the -outdoc file is optional. The server runs
+     * until the process is stopped, -ranker gives its default ranker.
      * <b>Return values are if error:</b>
      * <ul>
      * <li>(-1) The precision parameter is not a number.</li>
      * <li>(-2) The precision parameter is lower than 0.</li>
      * <li>(-3) The precision parameter is greater than 10.</li>
      * <li>(-11) The ranker name is wrong</li>
+     * <li>(-12) The ranker can not split the documents</li>
      * <li>(-21) The separator char is empty</li>
      * <li>(-22) The separator is not a char</li>
      * <li>(-31) File name doesn't exist</li>
      * <li>(-32) File name is not a file</li>
      * <li>(-33) Error when access to documents files</li>
-     * <li>(-34) Output file can not be write</li>
+     * <li>(-34) Output file can not be write, or has other columns</li>
      * <li>(-35) Output file can not be created</li>
+     * <li>(-36) Manifest file can not be read</li>
+     * <li>(-37) Input directories can not be listed</li>
+     * <li>(-38) The charset of the input documents is not supported</li>
+     * <li>(-39) The server can not be started</li>
+     * <li>(-40) The cache directory can not be created</li>
      * <li>(-41) Error when parsing parameters</li>
+     * <li>(-51) The threads parameter is not a number</li>
+     * <li>(-52) The threads parameter is lower than 0</li>
+     * <li>(-53) A flush parameter is not a number</li>
+     * <li>(-54) A flush parameter is lower than 1</li>
+     * <li>(-55) The server port is not a number</li>
+     * <li>(-56) The server port is not between 0 and 65535</li>
+     * <li>(-57) The cache size is not a number</li>
+     * <li>(-58) The cache size is lower than 1</li>
+     * <li>(-59) The result cache size is not a number</li>
+     * <li>(-60) The result cache size is lower than 0</li>
+     * <li>(-61) The result cache file can not be read</li>
+     * <li>(-62) The result cache file can not be written</li>
+     * <li>(-63) The maximum error rate is not a number</li>
+     * <li>(-64) The maximum error rate is lower than 0</li>
+     * <li>(-65) The sample size is not a number</li>
+     * <li>(-66) The sample size is not greater than 0</li>
+     * <li>(-67) The seed is not a number</li>
+     * <li>(-68) The top parameter is not a number</li>
+     * <li>(-69) The top parameter is lower than 0</li>
+     * <li>(-70) The sample is used with the maximum error rate or the split
+     * option</li>
+     * <li>(-71) A comparison failed, the results of the other comparisons
+     * are written</li>
      * <li>(-100) Internal error when creating the ranker. Please report a
      * bug</li>
      * <li>(-101) Internal error when get the ranker list. Please report a
@@ -118,33 +322,125 @@ public class RankerOCR {
         CommandLineParser parser = new GnuParser();
         try {
             CommandLine cmd = parser.parse(options, args);
+            if (cmd.hasOption("encoding")) {
+                encoding = evalEncoding(cmd.getOptionValue("encoding"));
+            }
+            split = cmd.hasOption("split");
+            if (cmd.hasOption("maxError")) {
+                maxRate = evalMaxError(cmd.getOptionValue("maxError"));
+            }
+            if (cmd.hasOption("cache")) {
+                tokenCache = evalCache(cmd.getOptionValue("cache"),
+                        cmd.getOptionValue("cacheSize", "1024"));
+            }
             if (cmd.hasOption("help")) {
                 showHelp(hf, options);
             } else if (cmd.hasOption("gui")) {
                 display.DispalyRankerOCR.main(new String[]{});
+            } else if (cmd.hasOption("server")) {
+                //<editor-fold defaultstate="collapsed" desc="Start server">
+                RankerDescriptor ranker = evalRanker(cmd.getOptionValue(
+                        "ranker", "SimpleRanker"));
+                int port = evalPort(cmd.getOptionValue("server"));
+                registerStats();
+                startServer(port, ranker);
+                //</editor-fold>
+            } else if (cmd.hasOption("indoc1")
+                    && cmd.hasOption("leaderboard")) {
+                //<editor-fold defaultstate="collapsed" desc="Rank leaderboard">
+                //Prepare parameter
+                RankerDescriptor ranker = evalRanker(cmd.getOptionValue(
+                        "ranker", "SimpleRanker"));
+                char separator = evalSeparator(cmd.getOptionValue("separator",
+                        "\t"));
+                File f1 = evalInputFile(cmd.getOptionValue("indoc1", ""));
+                List<DocumentPair> pairs = evalCandidates(f1,
+                        cmd.getOptionValues("leaderboard"));
+                //The candidates are compared concurrently by default
+                int threads = evalThreads(cmd.getOptionValue("threads", "0"));
+                int top = evalTop(cmd.getOptionValue("top", "0"));
+                ResultSink out = cmd.hasOption("outdoc")
+                        ? evalOutputFile(cmd.getOptionValue("outdoc"),
+                                separator, cmd, LEADERBOARD_TITLE) : null;
+                //Compare files and print the leaderboard
+                registerStats();
+                rankLeaderboard(f1, pairs, ranker, out, threads, top);
+                if (cmd.hasOption("stats")) {
+                    printStats();
+                } else {
+                    printCaches();
+                }
+                //</editor-fold>
             } else if (cmd.hasOption("indoc1")
                     && cmd.hasOption("indoc2")
                     && cmd.hasOption("outdoc")) {
                 //<editor-fold defaultstate="collapsed" desc="Rank documents">
                 //Prepare parameter
-                Class ranker = evalRanker(cmd.getOptionValue("ranker",
-                        "SimpleRanker"));
+                RankerDescriptor ranker = evalRanker(cmd.getOptionValue(
+                        "ranker", "SimpleRanker"));
                 char separator = evalSeparator(cmd.getOptionValue("separator",
                         "\t"));
                 File f1 = evalInputFile(cmd.getOptionValue("indoc1", ""));
                 File f2 = evalInputFile(cmd.getOptionValue("indoc2", ""));
-                File f3 = evalOutputFile(cmd.getOptionValue("outdoc", ""),
-                        separator);
-                //Read file
-                String s1 = readInputDocText(f1);
-                String s2 = readInputDocText(f2);
-                //Compare file
-                double percent = rankDocuments(s1, s2, ranker);
-                //Write result
-                String[] s = {Double.toString(percent), ranker.getSimpleName(),
-                    f1.getName(), f2.getName(), f1.getParent(), f2.getParent(),
-                    new Date().toString()};
-                writeOutpuDocCsv(f3, separator, s);
+                int threads = evalThreads(cmd.getOptionValue("threads", "1"));
+                ResultSink out = evalOutputFile(cmd.getOptionValue("outdoc",
+                        ""), separator, cmd);
+                //A single pair has no duplicate, only a file can answer it
+                if (cmd.hasOption("resultCache")) {
+                    resultCache = evalResultCache(cmd.getOptionValue(
+                            "resultCache"), cmd.getOptionValue(
+                                    "resultCacheSize", "10000"));
+                }
+                //Compare file and write result
+                registerStats();
+                rankPairs(Collections.singletonList(new DocumentPair(f1, f2)),
+                        ranker, out, threads, cmd.hasOption("stream"));
+                if (cmd.hasOption("stats")) {
+                    printStats();
+                } else {
+                    printCaches();
+                }
+                //</editor-fold>
+            } else if (cmd.hasOption("outdoc") && (cmd.hasOption("manifest")
+                    || cmd.hasOption("indir1") && cmd.hasOption("indir2"))) {
+                //<editor-fold defaultstate="collapsed" desc="Rank batch">
+                //Prepare parameter
+                RankerDescriptor ranker = evalRanker(cmd.getOptionValue(
+                        "ranker", "SimpleRanker"));
+                char separator = evalSeparator(cmd.getOptionValue("separator",
+                        "\t"));
+                List<DocumentPair> pairs = cmd.hasOption("manifest")
+                        ? evalManifest(cmd.getOptionValue("manifest"))
+                        : evalInputDirectories(cmd.getOptionValue("indir1"),
+                                cmd.getOptionValue("indir2"));
+                int threads = evalThreads(cmd.getOptionValue("threads", "1"));
+                long seed = evalSeed(cmd.getOptionValue("seed",
+                        Long.toString(System.nanoTime())));
+                if (cmd.hasOption("sample")) {
+                    estimator = new RateEstimator(pairs.size());
+                    pairs = evalSample(cmd.getOptionValue("sample"), pairs,
+                            seed);
+                }
+                ResultSink out = evalOutputFile(cmd.getOptionValue("outdoc",
+                        ""), separator, cmd);
+                if (cmd.hasOption("resultCache")
+                        || cmd.hasOption("resultCacheSize")) {
+                    resultCache = evalResultCache(cmd.getOptionValue(
+                            "resultCache"), cmd.getOptionValue(
+                                    "resultCacheSize", "10000"));
+                }
+                //Compare files and write results
+                registerStats();
+                rankPairs(pairs, ranker, out, threads, cmd.hasOption("stream"));
+                if (estimator != null) {
+                    System.out.println("Estimated error rate: " + estimator
+                            + ", seed " + seed);
+                }
+                if (cmd.hasOption("stats")) {
+                    printStats();
+                } else {
+                    printCaches();
+                }
                 //</editor-fold>
             } else {
                 printFormated("java -jar Ranker-OCR [options]  please type "
@@ -156,6 +452,119 @@ public class RankerOCR {
         }
     }
 
+    /**
+     * Create the ranker shared by the threads, splitting the documents with
+     * the split option.
+     * <p>
+     * @param ranker Descriptor of the ranker
+     * @param pool Pool comparing the segments of a single pair of documents,
+     * null if the documents are not split
+     * @return Ranker if possible. Otherwise, stop the program and return an
+     * error code
+     */
+    private static Ranker createRanker(RankerDescriptor ranker,
+            ForkJoinPool pool) {
+        try {
+            Ranker instance = ranker.getRanker();
+            return pool == null ? instance : evalSplit(ranker, instance, pool);
+        } catch (RuntimeException ex) {
+            printFormated(ex.getLocalizedMessage());
+            System.exit(-100);
+            return null;
+        }
+    }
+
+    /**
+     * Evaluate the cache parameters.
+     * <p>
+     * @param s Cache directory as a string
+     * @param size Maximum size of the cache in megabytes, as a string
+     * @return Cache if possible. Otherwise, stop the program and return an
+     * error code
+     */
+    private static TokenCache evalCache(String s, String size) {
+        long megabytes = 0;
+        try {
+            megabytes = Long.valueOf(size);
+        } catch (NumberFormatException ex) {
+            printFormated(ex.getLocalizedMessage());
+            System.exit(-57);
+        }
+        if (megabytes < 1) {
+            System.exit(-58);
+        }
+        try {
+            return new TokenCache(new File(s).toPath(),
+                    Math.min(megabytes, Long.MAX_VALUE >> 20) << 20);
+        } catch (IOException | InvalidPathException | SecurityException ex) {
+            printFormated("Cache directory can not be created : " + s);
+            System.exit(-40);
+            return null;
+        }
+    }
+
+    /**
+     * Evaluate the candidates of a leaderboard.
+     * <p>
+     * @param original Original document
+     * @param s Files or directories of the documents to compare
+     * @return Pairs of the original with each candidate if possible.
+     * Otherwise, stop the program and return an error code
+     */
+    private static List<DocumentPair> evalCandidates(File original,
+            String[] s) {
+        File[] candidates = new File[s.length];
+        for (int i = 0; i < s.length; ++i) {
+            candidates[i] = new File(s[i]);
+            if (!candidates[i].isDirectory()) {
+                evalInputFile(s[i]);
+            }
+        }
+        try {
+            return DocumentPair.fromCandidates(original, candidates);
+        } catch (IOException ex) {
+            printFormated(ex.getLocalizedMessage());
+            System.exit(-37);
+            return null;
+        }
+    }
+
+    /**
+     * Evaluate the encoding parameter.
+     * <p>
+     * @param s Charset name
+     * @return Charset if possible. Otherwise, stop the program and return an
+     * error code
+     */
+    private static Charset evalEncoding(String s) {
+        try {
+            return Charset.forName(s);
+        } catch (IllegalArgumentException ex) {
+            printFormated("Charset not supported : " + s);
+            System.exit(-38);
+            return null;
+        }
+    }
+
+    /**
+     * Evaluate the input directories parameters.
+     * <p>
+     * @param s1 Directory of the original documents as a string
+     * @param s2 Directory of the documents to compare as a string
+     * @return Pairs of documents if possible. Otherwise, stop the program and
+     * return an error code
+     */
+    private static List<DocumentPair> evalInputDirectories(String s1,
+            String s2) {
+        try {
+            return DocumentPair.fromDirectories(new File(s1), new File(s2));
+        } catch (IOException ex) {
+            printFormated(ex.getLocalizedMessage());
+            System.exit(-37);
+            return null;
+        }
+    }
+
     /**
      * Evaluate any input files parameters.
      * <p>
@@ -176,23 +585,109 @@ public class RankerOCR {
     }
 
     /**
-     * Evaluate any output files parameters.
+     * Evaluate the manifest parameter.
+     * <p>
+     * @param s Manifest file path as a string
+     * @return Pairs of documents if possible. Otherwise, stop the program and
+     * return an error code
+     */
+    private static List<DocumentPair> evalManifest(String s) {
+        try {
+            List<DocumentPair> pairs = DocumentPair.fromManifest(
+                    evalInputFile(s), encoding);
+            //Check all the files before the first comparison
+            for (DocumentPair p : pairs) {
+                evalInputFile(p.getOriginal().getPath());
+                evalInputFile(p.getComparative().getPath());
+            }
+            return pairs;
+        } catch (IOException ex) {
+            printFormated(ex.getLocalizedMessage());
+            System.exit(-36);
+            return null;
+        }
+    }
+
+    /**
+     * Evaluate the maximum error rate parameter.
+     * <p>
+     * @param s Maximum error rate in percent as a string
+     * @return Maximum error rate if possible. Otherwise, stop the program and
+     * return an error code
+     */
+    private static double evalMaxError(String s) {
+        try {
+            double rate = Double.valueOf(s);
+            if (!(rate >= 0)) {
+                System.exit(-64);
+            }
+            return rate;
+        } catch (NumberFormatException ex) {
+            printFormated(ex.getLocalizedMessage());
+            System.exit(-63);
+            return 0;
+        }
+    }
+
+    /**
+     * Evaluate a flush parameter.
+     * <p>
+     * @param s Flush parameter as a string
+     * @return Flush parameter as a number if possible. Otherwise, stop the
+     * program and return an error code
+     */
+    private static long evalFlushOption(String s) {
+        try {
+            long value = Long.valueOf(s);
+            if (value < 1) {
+                System.exit(-54);
+            }
+            return value;
+        } catch (NumberFormatException ex) {
+            printFormated(ex.getLocalizedMessage());
+            System.exit(-53);
+            return 0;
+        }
+    }
+
+    /**
+     * Evaluate any output files parameters and open the file.
+     * <p>
+     * The file is closed when the program stops, even on error, so the results
+     * already computed are kept.
      * <p>
      * @param s File path as a string
-     * @param c Separator charter, require if must to create a new file
-     * @return File if possible. Otherwise, stop the program and return an error
-     * code
+     * @param c Separator charter
+     * @param cmd Command line, giving the flush parameters
+     * @return Sink writing in the file if possible. Otherwise, stop the program
+     * and return an error code
      */
-    private static File evalOutputFile(String s, char c) {
+    private static ResultSink evalOutputFile(String s, char c,
+            CommandLine cmd) {
+        return evalOutputFile(s, c, cmd, RESULT_TITLE);
+    }
+
+    /**
+     * Evaluate the output file parameter, with the title of its columns.
+     * <p>
+     * @param s File path as a string
+     * @param c Separator charter
+     * @param cmd Command line, giving the flush parameters
+     * @param title Title of the columns, followed by the verdict with a
+     * maximum error rate
+     * @return Sink writing in the file if possible. Otherwise, stop the program
+     * and return an error code
+     */
+    private static ResultSink evalOutputFile(String s, char c,
+            CommandLine cmd, String[] title) {
+        long flushRows = evalFlushOption(cmd.getOptionValue("flushRows",
+                "1000"));
+        long flushMillis = evalFlushOption(cmd.getOptionValue("flushMillis",
+                "1000"));
         File f = new File(s);
         if (!f.exists()) {
             try {
                 f.createNewFile();
-                //Write CSV title
-                String[] t = {"Difference %", "Ranker name", "Original name",
-                    "Comparative name", "Original path", "Comparative path",
-                    "Date & Time"};
-                writeOutpuDocCsv(f, c, t);
             } catch (IOException ex) {
                 printFormated(ex.getLocalizedMessage());
                 System.exit(-35);
@@ -202,7 +697,49 @@ public class RankerOCR {
             printFormated("Can not write : " + s);
             System.exit(-34);
         }
-        return f;
+        try {
+            //CSV title
+            String[] t = title;
+            if (cmd.hasOption("maxError")) {
+                t = Arrays.copyOf(t, t.length + 1);
+                t[t.length - 1] = "Verdict";
+            }
+            ResultSink sink = new CsvResultSink(f, c, t,
+                    (int) Math.min(flushRows, Integer.MAX_VALUE), flushMillis);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    sink.close();
+                } catch (IOException ex) {
+                    printFormated(ex.getLocalizedMessage());
+                }
+            }));
+            return sink;
+        } catch (IOException ex) {
+            printFormated(ex.getLocalizedMessage());
+            System.exit(-34);
+            return null;
+        }
+    }
+
+    /**
+     * Evaluate the server port parameter.
+     * <p>
+     * @param s Port number as a string
+     * @return Port number if possible. Otherwise, stop the program and return
+     * an error code
+     */
+    private static int evalPort(String s) {
+        try {
+            int port = Integer.valueOf(s);
+            if (port < 0 || port > 65535) {
+                System.exit(-56);
+            }
+            return port;
+        } catch (NumberFormatException ex) {
+            printFormated(ex.getLocalizedMessage());
+            System.exit(-55);
+            return 0;
+        }
     }
 
     /**
@@ -233,17 +770,109 @@ public class RankerOCR {
      * Evaluate the ranker parameter.
      * <p>
      * @param s ranker parameter as a string
-     * @return Ranker class if possible. Otherwise, stop the program and return
-     * an error code
+     * @return Ranker descriptor if possible. Otherwise, stop the program and
+     * return an error code
      */
-    private static Class evalRanker(String s) {
+    private static RankerDescriptor evalRanker(String s) {
+        RankerDescriptor ranker = null;
         try {
-            return Class.forName("ranking." + s);
-        } catch (ClassNotFoundException ex) {
+            ranker = RankerRegistry.find(s);
+        } catch (ServiceConfigurationError ex) {
             printFormated(ex.getLocalizedMessage());
+            System.exit(-101);
+        }
+        if (ranker == null) {
+            printFormated("Unknown ranker : " + s);
             System.exit(-11);
+        }
+        return ranker;
+    }
+
+    /**
+     * Evaluate the result cache parameters.
+     * <p>
+     * @param s Result cache file as a string, null to keep the results in
+     * memory only
+     * @param size Maximum number of result kept in memory, as a string
+     * @return Result cache, or null if the size is 0. Otherwise, stop the
+     * program and return an error code
+     */
+    private static ResultCache evalResultCache(String s, String size) {
+        int capacity = 0;
+        try {
+            capacity = Integer.valueOf(size);
+        } catch (NumberFormatException ex) {
+            printFormated(ex.getLocalizedMessage());
+            System.exit(-59);
+        }
+        if (capacity < 0) {
+            System.exit(-60);
+        }
+        if (capacity == 0) {
             return null;
         }
+        try {
+            return new ResultCache(capacity, encoding,
+                    s == null ? null : new File(s).toPath());
+        } catch (IOException | InvalidPathException | SecurityException ex) {
+            printFormated("Result cache file can not be read : " + s);
+            System.exit(-61);
+            return null;
+        }
+    }
+
+    /**
+     * Evaluate the sample parameter and draw the sample. The estimation needs
+     * the exact results, so the sample can't be used with the maximum error
+     * rate, whose results are bounded, or with the split option.
+     * <p>
+     * @param s Number of pair, or percentage of the pairs followed by %, as a
+     * string
+     * @param pairs Pairs of documents of the batch
+     * @param seed Seed of the random sample
+     * @return Pairs sampled without replacement if possible. Otherwise, stop
+     * the program and return an error code
+     */
+    private static List<DocumentPair> evalSample(String s,
+            List<DocumentPair> pairs, long seed) {
+        if (maxRate >= 0 || split) {
+            printFormated("The sample needs exact results, it can't be used "
+                    + "with -maxError or -split");
+            System.exit(-70);
+        }
+        double size = 0;
+        try {
+            size = s.endsWith("%")
+                    ? Double.valueOf(s.substring(0, s.length() - 1))
+                    * pairs.size() / 100 : Long.valueOf(s);
+        } catch (NumberFormatException ex) {
+            printFormated(ex.getLocalizedMessage());
+            System.exit(-65);
+        }
+        if (!(size > 0)) {
+            System.exit(-66);
+        }
+        List<DocumentPair> sample = new ArrayList<>(pairs);
+        Collections.shuffle(sample, new Random(seed));
+        return sample.subList(0, (int) Math.min(Math.ceil(size),
+                sample.size()));
+    }
+
+    /**
+     * Evaluate the seed parameter.
+     * <p>
+     * @param s Seed as a string
+     * @return Seed if possible. Otherwise, stop the program and return an
+     * error code
+     */
+    private static long evalSeed(String s) {
+        try {
+            return Long.valueOf(s);
+        } catch (NumberFormatException ex) {
+            printFormated(ex.getLocalizedMessage());
+            System.exit(-67);
+            return 0;
+        }
     }
 
     /**
@@ -263,6 +892,68 @@ public class RankerOCR {
         return s.charAt(0);
     }
 
+    /**
+     * Evaluate the split option with the ranker to use.
+     * <p>
+     * @param ranker Descriptor of the ranker
+     * @param instance Ranker of the descriptor
+     * @param pool Pool comparing the segments of a single pair of documents
+     * @return Ranker splitting the documents if possible. Otherwise, stop the
+     * program and return an error code
+     */
+    private static Ranker evalSplit(RankerDescriptor ranker, Ranker instance,
+            ForkJoinPool pool) {
+        if (!(instance instanceof SegmentRanker)) {
+            printFormated("The ranker " + ranker.getName() + " can't split "
+                    + "the documents");
+            System.exit(-12);
+        }
+        return new AnchoredRanker((SegmentRanker) instance, pool);
+    }
+
+    /**
+     * Evaluate the top parameter of a leaderboard.
+     * <p>
+     * @param s Top parameter as a string
+     * @return Number of best documents kept if possible. Otherwise, stop the
+     * program and return an error code
+     */
+    private static int evalTop(String s) {
+        try {
+            int top = Integer.valueOf(s);
+            if (top < 0) {
+                printFormated("The top parameter is lower than 0 : " + s);
+                System.exit(-69);
+            }
+            return top;
+        } catch (NumberFormatException ex) {
+            printFormated(ex.getLocalizedMessage());
+            System.exit(-68);
+            return 0;
+        }
+    }
+
+    /**
+     * Evaluate the threads parameter.
+     * <p>
+     * @param s Threads parameter as a string
+     * @return Number of thread if possible. Otherwise, stop the program and
+     * return an error code
+     */
+    private static int evalThreads(String s) {
+        try {
+            int threads = Integer.valueOf(s);
+            if (threads < 0) {
+                System.exit(-52);
+            }
+            return threads;
+        } catch (NumberFormatException ex) {
+            printFormated(ex.getLocalizedMessage());
+            System.exit(-51);
+            return 0;
+        }
+    }
+
     /**
      * Print a text formatted for the CLI interface on the CLI interface.
      * <p>
@@ -275,21 +966,309 @@ public class RankerOCR {
     }
 
     /**
-     * Compare the documents and rank them.
+     * Print the failure of a comparison, then stop the program and return an
+     * error code.
      * <p>
-     * @param d1 Origin text
-     * @param d2 Comparative text
-     * @param ranker Class of the ranker to use
-     * @return Return the percent of difference between documents
+     * @param failure Exception thrown by the comparison
+     */
+    private static void printFailure(RuntimeException failure) {
+        String message = failure.getLocalizedMessage();
+        printFormated("A comparison failed : " + (message == null
+                ? failure.toString() : message));
+        System.exit(-71);
+    }
+
+    /**
+     * Print the hits and misses of the caches in use.
+     */
+    private static void printCaches() {
+        if (resultCache != null) {
+            System.out.println("Result cache: " + resultCache.getNbHit()
+                    + " hits, " + resultCache.getNbMiss() + " misses");
+        }
+        if (tokenCache != null) {
+            System.out.println("Token cache: " + tokenCache.getNbHit()
+                    + " hits, " + tokenCache.getNbMiss() + " misses");
+        }
+    }
+
+    /**
+     * Print the statistics of the ranking.
      */
-    private static double rankDocuments(String d1, String d2, Class ranker) {
+    private static void printStats() {
+        System.out.print(RankingStats.getInstance().getSummary());
+        printCaches();
+    }
+
+    /**
+     * Add a result to the result cache.
+     * <p>
+     * @param key Key of the pair of documents
+     * @param result Result of the comparison
+     */
+    private static void putResult(String key, RankResult result) {
         try {
-            Ranker instance = (Ranker) ranker.newInstance();
-            return instance.compare(d1, d2);
-        } catch (InstantiationException | IllegalAccessException ex) {
+            resultCache.put(key, result);
+        } catch (IOException ex) {
             printFormated(ex.getLocalizedMessage());
-            System.exit(-100);
-            return -1;
+            System.exit(-62);
+        }
+    }
+
+    /**
+     * Compare two files while reading them.
+     * <p>
+     * @param f1 Original document file
+     * @param f2 Comparative document file
+     * @param ranker Ranker to use
+     * @return Return the result of the comparison
+     */
+    private static RankResult rankInputDocStreams(File f1, File f2,
+            Ranker ranker) {
+        long t = System.nanoTime();
+        try (Reader r1 = DocumentReader.open(f1, encoding);
+                Reader r2 = DocumentReader.open(f2, encoding)) {
+            RankResult result = ranker.rank(r1, r2);
+            RankingStats.getInstance().record(RankingStats.Phase.STREAM,
+                    System.nanoTime() - t);
+            return result;
+        } catch (IOException ex) {
+            printFormated(ex.getLocalizedMessage());
+            System.exit(-33);
+            return null;
+        }
+    }
+
+    /**
+     * Compare candidate documents to an original document and print them from
+     * the best to the worst.
+     * <p>
+     * The original document is read and prepared once, then the candidates
+     * are compared to it concurrently. The time spent to compare each
+     * candidate doesn't include its reading. Only the best candidates are
+     * kept with a top parameter. The candidates are always compared to the
+     * end, so they are sorted by their exact error rate. The maximum error
+     * rate only gives the verdict of each candidate.
+     * <p>
+     * @param original Original document
+     * @param pairs Pairs of the original with each candidate
+     * @param ranker Descriptor of the ranker to use
+     * @param out Sink where write the leaderboard, closed at the end, or null
+     * @param threads Number of thread, 0 to use all the processors
+     * @param top Number of best candidates kept, 0 for all
+     */
+    private static void rankLeaderboard(File original,
+            List<DocumentPair> pairs, RankerDescriptor ranker, ResultSink out,
+            int threads, int top) {
+        ForkJoinPool pool = split ? new ForkJoinPool(threads > 0 ? threads
+                : Runtime.getRuntime().availableProcessors()) : null;
+        Ranker shared = createRanker(ranker, pool);
+        String text = readInputDocText(original);
+        PreparedDocument d1 = tokenCache == null ? shared.prepare(text)
+                : tokenCache.prepare(text);
+        Leaderboard board = new Leaderboard(top);
+        RankingExecutor.Job job = (DocumentPair p, Ranker instance) -> {
+            File f2 = p.getComparative();
+            DocumentContext.set(original.getPath(), f2.getPath());
+            String s2 = readInputDocText(f2);
+            long t = System.nanoTime();
+            //A bounded result would be sorted by its lower bound
+            RankResult result = instance.rank(d1, s2);
+            board.add(f2, result, System.nanoTime() - t);
+            RankingStats.getInstance().addDocument(result.getNbWord());
+            DocumentContext.clear();
+        };
+        RuntimeException failure = null;
+        try {
+            new RankingExecutor(shared, threads).execute(pairs, job);
+        } catch (RuntimeException ex) {
+            failure = ex;
+        }
+        if (pool != null) {
+            pool.shutdown();
+        }
+        if (failure != null) {
+            printFailure(failure);
+        }
+        System.out.println("Leaderboard of " + board.getNbCandidate()
+                + " documents compared to " + original.getName() + " by "
+                + ranker.getName() + ":");
+        System.out.print(board);
+        if (out == null) {
+            return;
+        }
+        //Write the leaderboard
+        int rank = 0;
+        for (Leaderboard.Entry e : board.getEntries()) {
+            RankResult r = e.getResult();
+            File f2 = e.getCandidate();
+            String[] row = {Integer.toString(++rank),
+                Double.toString(r.getRate()), Long.toString(r.getNbError()),
+                Long.toString(r.getNbWord()), Double.toString(e.getMillis()),
+                ranker.getName(), original.getName(), f2.getName(),
+                f2.getParent(), new Date().toString()};
+            if (maxRate >= 0) {
+                row = Arrays.copyOf(row, row.length + 1);
+                row[row.length - 1] = r.isPassed(maxRate) ? "PASS" : "FAIL";
+            }
+            writeResult(out, row);
+        }
+        try {
+            out.close();
+        } catch (IOException ex) {
+            printFormated(ex.getLocalizedMessage());
+            System.exit(-34);
+        }
+    }
+
+    /**
+     * Compare the pairs of documents and write the results.
+     * <p>
+     * All the threads share the ranker instance of the descriptor. With more
+     * than one thread, the results are written in the order the comparisons
+     * end. Each original document is read and prepared once, and kept until
+     * its last comparison, unless the documents are streamed. With a token
+     * cache, the original documents prepared by a previous run are loaded from
+     * the cache. With a maximum error rate, the comparisons of the documents
+     * read at once stop as soon as they pass or fail, the streamed documents
+     * are compared to the end. When the documents are split, the segments of
+     * a pair are compared on the threads of the batch, or on a pool of the
+     * given number of thread for a single pair. The names of the documents of
+     * each pair are given to the Flight Recorder events through the
+     * {@link DocumentContext}.
+     * <p>
+     * @param pairs Pairs of documents to compare
+     * @param ranker Descriptor of the ranker to use
+     * @param out Sink where write the results, closed at the end
+     * @param threads Number of thread, 0 to use all the processors
+     * @param stream True to read the documents while comparing them
+     */
+    private static void rankPairs(List<DocumentPair> pairs,
+            RankerDescriptor ranker, ResultSink out, int threads,
+            boolean stream) {
+        ForkJoinPool pool = split ? new ForkJoinPool(threads > 0 ? threads
+                : Runtime.getRuntime().availableProcessors()) : null;
+        RankingExecutor executor = new RankingExecutor(createRanker(ranker,
+                pool), threads);
+        //Count the comparisons of each original document
+        Map<File, AtomicInteger> uses = new HashMap<>();
+        pairs.stream().forEach((p) -> {
+            uses.computeIfAbsent(p.getOriginal(), (f) -> new AtomicInteger())
+                    .incrementAndGet();
+        });
+        Map<File, PreparedDocument> prepared = new ConcurrentHashMap<>();
+        RankingExecutor.Job job = (DocumentPair p, Ranker instance) -> {
+            File f1 = p.getOriginal();
+            File f2 = p.getComparative();
+            DocumentContext.set(f1.getPath(), f2.getPath());
+            RankEvent event = new RankEvent();
+            event.begin();
+            long allocated = event.isEnabled()
+                    ? DocumentContext.allocatedBytes() : -1;
+            //Look for the result of a duplicated pair
+            String key = resultKey(f1, f2, ranker);
+            RankResult result = key == null ? null : resultCache.get(key);
+            boolean cached = result != null;
+            if (cached) {
+                //Already compared
+            } else if (stream) {
+                //Compare files while reading them
+                result = rankInputDocStreams(f1, f2, instance);
+            } else {
+                //Read and prepare the original file once
+                PreparedDocument d1 = prepared.computeIfAbsent(f1,
+                        (f) -> tokenCache == null
+                                ? instance.prepare(readInputDocText(f))
+                                : tokenCache.prepare(readInputDocText(f)));
+                //Read file
+                String s2 = readInputDocText(f2);
+                //Compare file
+                result = maxRate < 0 ? instance.rank(d1, s2)
+                        : instance.rank(d1, s2, maxRate);
+            }
+            if (!stream && uses.get(f1).decrementAndGet() == 0) {
+                prepared.remove(f1);
+            }
+            if (key != null && !cached) {
+                putResult(key, result);
+            }
+            RankingStats.getInstance().addDocument(result.getNbWord());
+            if (estimator != null) {
+                estimator.add(result);
+            }
+            //Write result
+            String[] row = {Double.toString(result.getRate()),
+                ranker.getName(), f1.getName(), f2.getName(), f1.getParent(),
+                f2.getParent(), new Date().toString()};
+            if (maxRate >= 0) {
+                row = Arrays.copyOf(row, row.length + 1);
+                row[row.length - 1] = result.isPassed(maxRate) ? "PASS"
+                        : "FAIL";
+            }
+            writeResult(out, row);
+            event.end();
+            if (event.shouldCommit()) {
+                event.ranker = ranker.getName();
+                event.words = result.getNbWord();
+                event.errors = result.getNbError();
+                event.allocated = allocated < 0 ? -1
+                        : DocumentContext.allocatedBytes() - allocated;
+                event.commitDocuments();
+            }
+            DocumentContext.clear();
+        };
+        //The executor returns once no job is running, even after a failure
+        RuntimeException failure = null;
+        try {
+            executor.execute(pairs, job);
+        } catch (RuntimeException ex) {
+            failure = ex;
+        }
+        if (pool != null) {
+            pool.shutdown();
+        }
+        try {
+            out.close();
+        } catch (IOException ex) {
+            printFormated(ex.getLocalizedMessage());
+            System.exit(-34);
+        }
+        try {
+            if (resultCache != null) {
+                resultCache.close();
+            }
+        } catch (IOException ex) {
+            printFormated(ex.getLocalizedMessage());
+            System.exit(-62);
+        }
+        if (failure != null) {
+            printFailure(failure);
+        }
+    }
+
+    /**
+     * Compute the key of a pair of documents in the result cache.
+     * <p>
+     * @param f1 Original document file
+     * @param f2 Comparative document file
+     * @param ranker Ranker to use
+     * @return Key, or null if there is no result cache
+     */
+    private static String resultKey(File f1, File f2,
+            RankerDescriptor ranker) {
+        if (resultCache == null) {
+            return null;
+        }
+        try {
+            String key = resultCache.key(f1, f2, ranker);
+            //A result stopped at the maximum error rate only holds for it
+            key = maxRate < 0 ? key : key + '/' + maxRate;
+            //A split comparison can differ near the ends of the segments
+            return split ? key + "/split" : key;
+        } catch (IOException ex) {
+            printFormated(ex.getLocalizedMessage());
+            System.exit(-33);
+            return null;
         }
     }
 
@@ -300,21 +1279,20 @@ public class RankerOCR {
      * @return Text of the document
      */
     private static String readInputDocText(File f) {
-        try (FileReader fr = new FileReader(f)) {
-            StringBuilder s;
-            try (BufferedReader b = new BufferedReader(fr)) {
-                s = new StringBuilder();
-                while (true) {
-                    String line = b.readLine();
-                    if (line == null) {
-                        break;
-                    } else {
-                        s.append(line);
-                        s.append("\n");
-                    }
-                }
+        try {
+            ReadEvent event = new ReadEvent();
+            event.begin();
+            long t = System.nanoTime();
+            String s = DocumentReader.read(f, encoding);
+            RankingStats.getInstance().record(RankingStats.Phase.READ,
+                    System.nanoTime() - t);
+            event.end();
+            if (event.shouldCommit()) {
+                event.file = f.getPath();
+                event.size = f.length();
+                event.commitDocuments();
             }
-            return s.toString();
+            return s;
         } catch (IOException ex) {
             printFormated(ex.getLocalizedMessage());
             System.exit(-33);
@@ -322,6 +1300,18 @@ public class RankerOCR {
         }
     }
 
+    /**
+     * Publish the ranking statistics through JMX. The ranking goes on if they
+     * can not be published.
+     */
+    private static void registerStats() {
+        try {
+            RankingStats.getInstance().register();
+        } catch (JMException | SecurityException ex) {
+            printFormated(ex.getLocalizedMessage());
+        }
+    }
+
     /**
      * Show the help on CLI.
      * <p>
@@ -355,16 +1345,14 @@ public class RankerOCR {
             //Finnaly print the rankers list
             //<editor-fold defaultstate="collapsed" desc="Print rankers">
             try {
-
                 System.out.println("\nRankers list:");
-                List<Class> lst = PackageClassList.getClasses("ranking");
-                lst.remove(ranking.Ranker.class);
-                lst.stream().forEach((c) -> {
-                    if (!c.isInterface()) {
-                        System.out.println(" -" + c.getSimpleName());
-                    }
+                RankerRegistry.getRankers().stream().forEach((r) -> {
+                    String aliases = r.getAliases().isEmpty() ? ""
+                            : " (" + String.join(", ", r.getAliases()) + ")";
+                    System.out.println(" -" + r.getName() + aliases + ": "
+                            + r.getDescription());
                 });
-            } catch (ClassNotFoundException | IOException ex) {
+            } catch (ServiceConfigurationError ex) {
                 printFormated(ex.getLocalizedMessage());
                 System.exit(-101);
             }
@@ -376,30 +1364,47 @@ public class RankerOCR {
     }
 
     /**
-     * Write all the given text in a new line in a CSV file
+     * Start the ranking server. The server is stopped when the program ends.
      * <p>
-     * @param f CSV file to write
-     * @param c Separator charter
+     * @param port Port number, 0 for any free port
+     * @param ranker Default ranker of the requests
+     */
+    private static void startServer(int port, RankerDescriptor ranker) {
+        try {
+            RankingServer server = new RankingServer(port, ranker, encoding);
+            server.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.stop(1);
+            }));
+            System.out.println("Ranking server listening on http://"
+                    + "localhost:" + server.getPort() + "/rank");
+        } catch (IOException ex) {
+            printFormated(ex.getLocalizedMessage());
+            System.exit(-39);
+        }
+    }
+
+    /**
+     * Write a result in the output sink.
+     * <p>
+     * @param sink Output sink
      * @param s Values to write
      */
-    private static void writeOutpuDocCsv(File f, char c, String[] s) {
-        FileWriter w = null;
+    private static void writeResult(ResultSink sink, String... s) {
         try {
-            w = new FileWriter(f, true);
-            for (String txt : s) {
-                w.append(txt + c);
+            WriteEvent event = new WriteEvent();
+            event.begin();
+            long t = System.nanoTime();
+            sink.write(s);
+            RankingStats.getInstance().record(RankingStats.Phase.WRITE,
+                    System.nanoTime() - t);
+            event.end();
+            if (event.shouldCommit()) {
+                event.commitDocuments();
             }
-            w.append("\n\r");
         } catch (IOException ex) {
             printFormated(ex.getLocalizedMessage());
             System.exit(-34);
-        } finally {
-            try {
-                w.close();
-            } catch (IOException ex) {
-                printFormated(ex.getLocalizedMessage());
-                System.exit(-34);
-            }
         }
     }
 }
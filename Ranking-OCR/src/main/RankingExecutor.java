@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import ranking.Ranker;
+
+/**
+ * Rank pairs of documents on several threads.
+ * <p>
+ * The pairs are ranked by a fork/join pool. The worker threads share the same
+ * ranker instance, a ranker keeping no state between its comparisons. The
+ * pairs are submitted from the largest to the smallest, so a big document
+ * doesn't start last and keep a single thread busy at the end of the batch.
+ * <p>
+ * With a single thread, the pairs are ranked in the list order by the calling
+ * thread.
+ * <p>
+ * If a job fails, the pairs not started yet are cancelled and the running
+ * jobs are awaited before the failure is thrown, so no job is still running
+ * when the caller handles it.
+ * <p>
+ * @author Nils Ryter
+ */
+public class RankingExecutor {
+
+    //Ranker shared by the threads
+    private final Ranker ranker;
+    //Number of thread
+    private final int threads;
+
+    /**
+     * Job done for each pair of documents.
+     */
+    public interface Job {
+
+        /**
+         * Rank a pair of documents.
+         * <p>
+         * @param pair Pair of documents
+         * @param ranker Shared ranker
+         */
+        public void rank(DocumentPair pair, Ranker ranker);
+    }
+
+    /**
+     * Create a new RankingExecutor.
+     * <p>
+     * @param ranker Ranker shared by the threads
+     * @param threads Number of thread, 0 to use all the processors
+     */
+    public RankingExecutor(Ranker ranker, int threads) {
+        this.ranker = ranker;
+        this.threads = threads > 0 ? threads
+                : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Rank all the pairs of documents and wait the end of the jobs.
+     * <p>
+     * @param pairs Pairs of documents
+     * @param job Job to do for each pair, called concurrently if there is more
+     * than one thread
+     * @throws RuntimeException A job failed, thrown once no job is running
+     */
+    public void execute(List<DocumentPair> pairs, Job job) {
+        if (threads == 1 || pairs.size() <= 1) {
+            for (DocumentPair p : pairs) {
+                job.rank(p, ranker);
+            }
+            return;
+        }
+        //Sort the pairs from the largest to the smallest
+        long[] sizes = new long[pairs.size()];
+        Integer[] order = new Integer[pairs.size()];
+        for (int i = 0; i < order.length; ++i) {
+            DocumentPair p = pairs.get(i);
+            sizes[i] = p.getOriginal().length() + p.getComparative().length();
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong((Integer i) -> sizes[i])
+                .reversed());
+        //Rank the pairs
+        ForkJoinPool pool = new ForkJoinPool(threads,
+                ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(order.length);
+        try {
+            for (Integer i : order) {
+                DocumentPair p = pairs.get(i);
+                tasks.add(pool.submit(() -> job.rank(p, ranker)));
+            }
+            for (ForkJoinTask<?> t : tasks) {
+                t.join();
+            }
+        } finally {
+            //After a failure, don't start the remaining pairs. The running
+            //jobs are not interrupted, they may be writing a result.
+            for (ForkJoinTask<?> t : tasks) {
+                t.cancel(false);
+            }
+            pool.shutdown();
+            awaitTermination(pool);
+        }
+    }
+
+    /**
+     * Wait the end of the running jobs of a pool shut down.
+     * <p>
+     * @param pool Pool shut down
+     */
+    private static void awaitTermination(ForkJoinPool pool) {
+        try {
+            while (!pool.awaitTermination(1, TimeUnit.MINUTES)) {
+                //Keep waiting the long comparisons
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
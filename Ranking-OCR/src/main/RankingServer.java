@@ -0,0 +1,397 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package main;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import events.DocumentContext;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import libraries.DocumentReader;
+import ranking.RankResult;
+import ranking.RankerDescriptor;
+import ranking.RankerRegistry;
+import ranking.RankingStats;
+
+/**
+ * Rank documents for the requests received by an HTTP server on the loopback
+ * interface.
+ * <p>
+ * A single process serves all the comparisons, so the JVM starts once and the
+ * rankers are compiled by the JIT after the first requests. The requests are
+ * handled on virtual threads when the JVM has them (Java 21 and later), on a
+ * cached thread pool otherwise. All the requests share the ranker instances
+ * of the {@link RankerRegistry}.
+ * <p>
+ * The path {@code /rank} accepts GET and POST requests. The parameters are
+ * given in the query string or in a form encoded body
+ * ({@code application/x-www-form-urlencoded}):
+ * <ul>
+ * <li>original, comparative: texts of the documents</li>
+ * <li>originalFile, comparativeFile: paths of the documents files, instead of
+ * the texts</li>
+ * <li>ranker: name or alias of the ranker, the server default if missing</li>
+ * <li>maxError: maximum error rate in percent of a passed comparison, the
+ * comparison stops as soon as it passes or fails. The result then has the
+ * maximum number of error (errorsMax) and the verdict (passed).</li>
+ * </ul>
+ * The result is a JSON object, e.g.
+ * {@code {"ranker":"SimpleRanker","rate":20.0,"errors":1,"words":5}}. A
+ * wrong request gets a status 400, 404 if a file doesn't exist, or 413 if
+ * the body is larger than the maximum body size, with a JSON object
+ * {@code {"error":"message"}}.
+ * <p>
+ * @author Nils Ryter
+ */
+public class RankingServer {
+
+    //Default maximum size of a request body, in bytes
+    public static final int MAX_BODY_SIZE = 1 << 26;
+    //Ranker used when the request doesn't name one
+    private final RankerDescriptor defaultRanker;
+    //Charset of the documents files
+    private final Charset encoding;
+    //Threads handling the requests
+    private final ExecutorService executor;
+    //Maximum size of a request body, in bytes
+    private volatile int maxBodySize = MAX_BODY_SIZE;
+    //HTTP server
+    private final HttpServer server;
+
+    /**
+     * Create a server listening on a port of the loopback interface. The
+     * server doesn't handle the requests before it is started.
+     * <p>
+     * @param port Port number, 0 for any free port
+     * @param defaultRanker Ranker used when the request doesn't name one
+     * @param encoding Charset of the documents files
+     * @throws IOException The port can not be bound
+     */
+    public RankingServer(int port, RankerDescriptor defaultRanker,
+            Charset encoding) throws IOException {
+        this.defaultRanker = defaultRanker;
+        this.encoding = encoding;
+        server = HttpServer.create(new InetSocketAddress(
+                InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/rank", this::handle);
+        executor = newExecutor();
+        server.setExecutor(executor);
+    }
+
+    /**
+     * Return the port the server listens to.
+     * <p>
+     * @return Port number
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Set the maximum size of a request body. A larger body is refused with a
+     * status 413 without being buffered.
+     * <p>
+     * @param maxBodySize Number of bytes, {@link #MAX_BODY_SIZE} by default
+     */
+    public void setMaxBodySize(int maxBodySize) {
+        this.maxBodySize = Math.max(maxBodySize, 0);
+    }
+
+    /**
+     * Start handling the requests, in background threads.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stop the server, after the requests in progress end.
+     * <p>
+     * @param delay Maximum time to wait the requests in progress, in seconds
+     */
+    public void stop(int delay) {
+        server.stop(delay);
+        executor.shutdown();
+    }
+
+    /**
+     * Return a string as a JSON string.
+     * <p>
+     * @param s String
+     * @return Quoted and escaped string
+     */
+    static String quote(String s) {
+        StringBuilder b = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); ++i) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                b.append('\\').append(c);
+            } else if (c < 0x20) {
+                b.append(String.format("\\u%04x", (int) c));
+            } else {
+                b.append(c);
+            }
+        }
+        return b.append('"').toString();
+    }
+
+    /**
+     * Create the executor of the requests, with a virtual thread per request
+     * if the JVM has them.
+     * <p>
+     * @return Executor
+     */
+    private static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod(
+                    "newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * Add the form encoded parameters to a map. Answers the request with an
+     * error if a parameter is malformed.
+     * <p>
+     * @param exchange HTTP exchange
+     * @param s Query string or form encoded body, can be null
+     * @param parameters Map of the parameters by name
+     * @return False if the request is answered
+     * @throws IOException The error can not be sent
+     */
+    private static boolean parse(HttpExchange exchange, String s,
+            Map<String, String> parameters) throws IOException {
+        if (s == null || s.isEmpty()) {
+            return true;
+        }
+        for (String p : s.split("&")) {
+            int i = p.indexOf('=');
+            String name = i < 0 ? p : p.substring(0, i);
+            String value = i < 0 ? "" : p.substring(i + 1);
+            try {
+                parameters.put(URLDecoder.decode(name, "UTF-8"),
+                        URLDecoder.decode(value, "UTF-8"));
+            } catch (IllegalArgumentException ex) {
+                //Wrong escape sequence, e.g. %zz
+                send(exchange, 400, "{\"error\":" + quote("Malformed "
+                        + "parameter " + name + ": "
+                        + ex.getLocalizedMessage()) + "}");
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Read a request body. Answers the request with an error if the body is
+     * larger than the maximum body size.
+     * <p>
+     * @param exchange HTTP exchange
+     * @return Body, decoded as UTF-8, or null if the request is answered
+     * @throws IOException The body can not be read
+     */
+    private String readBody(HttpExchange exchange) throws IOException {
+        int max = maxBodySize;
+        long length = -1;
+        String header = exchange.getRequestHeaders().getFirst(
+                "Content-Length");
+        if (header != null) {
+            try {
+                length = Long.parseLong(header.trim());
+            } catch (NumberFormatException ex) {
+                length = -1;
+            }
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream(
+                (int) Math.max(Math.min(length, max), 32));
+        if (length <= max) {
+            //Read one byte more than the maximum to detect a larger body
+            InputStream in = exchange.getRequestBody();
+            byte[] buffer = new byte[1 << 13];
+            int n;
+            while (body.size() <= max && (n = in.read(buffer, 0,
+                    Math.min(buffer.length, max + 1 - body.size()))) > 0) {
+                body.write(buffer, 0, n);
+            }
+        }
+        if (length > max || body.size() > max) {
+            send(exchange, 413, "{\"error\":" + quote("Body larger than "
+                    + max + " bytes") + "}");
+            return null;
+        }
+        return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Send a JSON response and end the exchange.
+     * <p>
+     * @param exchange HTTP exchange
+     * @param status HTTP status
+     * @param json JSON object
+     * @throws IOException The response can not be sent
+     */
+    private static void send(HttpExchange exchange, int status, String json)
+            throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type",
+                "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Handle a ranking request.
+     * <p>
+     * @param exchange HTTP exchange
+     * @throws IOException The request can not be read or answered
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            if (!method.equals("GET") && !method.equals("POST")) {
+                exchange.getResponseHeaders().set("Allow", "GET, POST");
+                send(exchange, 405, "{\"error\":\"Method not allowed\"}");
+                return;
+            }
+            Map<String, String> parameters = new HashMap<>();
+            if (!parse(exchange, exchange.getRequestURI().getRawQuery(),
+                    parameters)) {
+                return;
+            }
+            if (method.equals("POST")) {
+                String body = readBody(exchange);
+                if (body == null || !parse(exchange, body, parameters)) {
+                    return;
+                }
+            }
+            RankerDescriptor ranker = defaultRanker;
+            if (parameters.containsKey("ranker")) {
+                ranker = RankerRegistry.find(parameters.get("ranker"));
+                if (ranker == null) {
+                    send(exchange, 400, "{\"error\":" + quote("Unknown ranker "
+                            + parameters.get("ranker")) + "}");
+                    return;
+                }
+            }
+            double maxRate = -1;
+            if (parameters.containsKey("maxError")) {
+                try {
+                    maxRate = Double.parseDouble(parameters.get("maxError"));
+                } catch (NumberFormatException ex) {
+                    maxRate = Double.NaN;
+                }
+                if (!(maxRate >= 0)) {
+                    send(exchange, 400, "{\"error\":" + quote("Wrong maximum "
+                            + "error rate " + parameters.get("maxError"))
+                            + "}");
+                    return;
+                }
+            }
+            String original = text(exchange, parameters, "original");
+            String comparative = original == null ? null
+                    : text(exchange, parameters, "comparative");
+            if (comparative == null) {
+                return;
+            }
+            DocumentContext.set(parameters.getOrDefault("originalFile",
+                    "original"), parameters.getOrDefault("comparativeFile",
+                            "comparative"));
+            RankResult result;
+            try {
+                result = maxRate < 0
+                        ? ranker.getRanker().rank(original, comparative)
+                        : ranker.getRanker().rank(original, comparative,
+                                maxRate);
+            } finally {
+                DocumentContext.clear();
+            }
+            RankingStats.getInstance().addDocument(result.getNbWord());
+            String verdict = maxRate < 0 ? "" : String.format(Locale.ROOT,
+                    ",\"errorsMax\":%d,\"passed\":%b",
+                    result.getNbErrorMax(), result.isPassed(maxRate));
+            send(exchange, 200, String.format(Locale.ROOT,
+                    "{\"ranker\":%s,\"rate\":%s,\"errors\":%d,\"words\":%d%s}",
+                    quote(ranker.getName()), Double.toString(result.getRate()),
+                    result.getNbError(), result.getNbWord(), verdict));
+        } catch (RuntimeException ex) {
+            String message = ex.getLocalizedMessage();
+            send(exchange, 500, "{\"error\":" + quote(message == null
+                    ? ex.toString() : message) + "}");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Return the text of a document of the request, given inline or as a
+     * file path. Answers the request with an error if the document is
+     * missing or can not be read.
+     * <p>
+     * @param exchange HTTP exchange
+     * @param parameters Parameters of the request
+     * @param name Name of the document parameter, the file parameter name is
+     * the same followed by "File"
+     * @return Text of the document, or null if the request is answered
+     * @throws IOException The error can not be sent
+     */
+    private String text(HttpExchange exchange, Map<String, String> parameters,
+            String name) throws IOException {
+        String s = parameters.get(name);
+        if (s != null) {
+            return s;
+        }
+        String path = parameters.get(name + "File");
+        if (path == null) {
+            send(exchange, 400, "{\"error\":" + quote("Missing parameter "
+                    + name + " or " + name + "File") + "}");
+            return null;
+        }
+        File f = new File(path);
+        if (!f.isFile()) {
+            send(exchange, 404, "{\"error\":" + quote("File not found "
+                    + path) + "}");
+            return null;
+        }
+        try {
+            long t = System.nanoTime();
+            s = DocumentReader.read(f, encoding);
+            RankingStats.getInstance().record(RankingStats.Phase.READ,
+                    System.nanoTime() - t);
+            return s;
+        } catch (IOException ex) {
+            send(exchange, 400, "{\"error\":" + quote(path + ": "
+                    + ex.getLocalizedMessage()) + "}");
+            return null;
+        }
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package main;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import ranking.RankResult;
+import ranking.RankerDescriptor;
+import ranking.Tokenizer;
+
+/**
+ * Cache of the results of the comparisons, so the duplicated pairs of
+ * documents are not compared again.
+ * <p>
+ * A result is found by the SHA-256 hashes of the bytes of both files, the
+ * charset of the documents, the name and version of the ranker and the
+ * {@link Tokenizer#VERSION}. The hash of an original document is computed once
+ * per run. The results are kept in memory up to a number of result, the least
+ * recently used results are dropped first.
+ * <p>
+ * The results can be kept in a file for the next runs. The file is loaded
+ * when the cache is created, and the new results are appended to it. When the
+ * cache is closed, the file is rewritten with the results kept in memory if
+ * it has more lines. Each line is a key, the number of error and the number
+ * of word, plus the maximum number of error for a bounded result, separated
+ * by a tab.
+ * <p>
+ * A cache can be used by several threads.
+ * <p>
+ * @author Nils Ryter
+ */
+public class ResultCache implements Closeable {
+
+    //Separator of the values in the cache file
+    private static final char SEPARATOR = '\t';
+    //Charset of the documents, part of the key
+    private final String encoding;
+    //Cache file, null if the results are only kept in memory
+    private final Path file;
+    //Hash of the original documents files
+    private final Map<File, String> hashes = new ConcurrentHashMap<>();
+    //Number of result found in the cache
+    private final AtomicLong nbHit = new AtomicLong();
+    //Number of line in the cache file
+    private long nbLine = 0;
+    //Number of result missing from the cache
+    private final AtomicLong nbMiss = new AtomicLong();
+    //Results by key, the least recently used first
+    private final LinkedHashMap<String, RankResult> results;
+    //Writer appending the new results to the cache file, null if no file
+    private Writer writer = null;
+
+    /**
+     * Create a new ResultCache.
+     * <p>
+     * @param capacity Maximum number of result kept
+     * @param encoding Charset of the documents
+     * @param file File keeping the results for the next runs, created if it
+     * doesn't exist, or null to keep the results in memory only
+     * @throws IOException The cache file can not be read or opened
+     */
+    public ResultCache(int capacity, Charset encoding, Path file)
+            throws IOException {
+        this.encoding = encoding.name();
+        this.file = file;
+        results = new LinkedHashMap<String, RankResult>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<String, RankResult> eldest) {
+                return size() > capacity;
+            }
+        };
+        if (file != null) {
+            if (Files.exists(file)) {
+                load();
+            }
+            writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+    }
+
+    /**
+     * Write the new results in the cache file, rewritten if it has more lines
+     * than results in memory. Does nothing without cache file.
+     * <p>
+     * @throws IOException The cache file can not be written
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (writer == null) {
+            return;
+        }
+        writer.close();
+        writer = null;
+        if (nbLine > results.size()) {
+            Path tmp = Files.createTempFile(file.toAbsolutePath().getParent(),
+                    file.getFileName().toString(), ".part");
+            try (Writer w = Files.newBufferedWriter(tmp,
+                    StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, RankResult> e : results.entrySet()) {
+                    write(w, e.getKey(), e.getValue());
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            nbLine = results.size();
+        }
+    }
+
+    /**
+     * Return the result of a pair of documents.
+     * <p>
+     * @param key Key of the pair, from {@link #key}
+     * @return Result, or null if the pair isn't in the cache
+     */
+    public RankResult get(String key) {
+        RankResult r;
+        synchronized (this) {
+            r = results.get(key);
+        }
+        (r == null ? nbMiss : nbHit).incrementAndGet();
+        return r;
+    }
+
+    /**
+     * Return the number of result found in the cache.
+     * <p>
+     * @return Number of hit
+     */
+    public long getNbHit() {
+        return nbHit.get();
+    }
+
+    /**
+     * Return the number of result missing from the cache.
+     * <p>
+     * @return Number of miss
+     */
+    public long getNbMiss() {
+        return nbMiss.get();
+    }
+
+    /**
+     * Compute the key of a pair of documents compared by a ranker.
+     * <p>
+     * @param original Original document file
+     * @param comparative Comparative document file
+     * @param ranker Ranker
+     * @return Key of the result
+     * @throws IOException A file can not be read
+     */
+    public String key(File original, File comparative, RankerDescriptor ranker)
+            throws IOException {
+        String h1;
+        try {
+            h1 = hashes.computeIfAbsent(original, (f) -> {
+                try {
+                    return hash(f);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        return h1 + '/' + hash(comparative) + '/' + encoding + '/'
+                + ranker.getName() + '/' + ranker.getVersion() + '/'
+                + Tokenizer.VERSION;
+    }
+
+    /**
+     * Add the result of a pair of documents.
+     * <p>
+     * @param key Key of the pair, from {@link #key}
+     * @param result Result of the comparison
+     * @throws IOException The cache file can not be written
+     */
+    public synchronized void put(String key, RankResult result)
+            throws IOException {
+        results.put(key, result);
+        if (writer != null) {
+            write(writer, key, result);
+            ++nbLine;
+        }
+    }
+
+    /**
+     * Compute the SHA-256 hash of a file.
+     * <p>
+     * @param f File
+     * @return Hash, as hexadecimal digits
+     * @throws IOException The file can not be read
+     */
+    private static String hash(File f) throws IOException {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+        byte[] buffer = new byte[1 << 16];
+        try (InputStream in = Files.newInputStream(f.toPath())) {
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                md.update(buffer, 0, n);
+            }
+        }
+        StringBuilder s = new StringBuilder(64);
+        for (byte b : md.digest()) {
+            s.append(Character.forDigit((b >> 4) & 0xF, 16))
+                    .append(Character.forDigit(b & 0xF, 16));
+        }
+        return s.toString();
+    }
+
+    /**
+     * Write a result in a cache file.
+     * <p>
+     * @param w Writer of the cache file
+     * @param key Key of the result
+     * @param result Result
+     * @throws IOException The file can not be written
+     */
+    private static void write(Writer w, String key, RankResult result)
+            throws IOException {
+        w.write(key);
+        w.write(SEPARATOR);
+        w.write(Long.toString(result.getNbError()));
+        w.write(SEPARATOR);
+        w.write(Long.toString(result.getNbWord()));
+        if (!result.isExact()) {
+            w.write(SEPARATOR);
+            w.write(Long.toString(result.getNbErrorMax()));
+        }
+        w.write('\n');
+    }
+
+    /**
+     * Load the results of the cache file. The lines which are not valid are
+     * ignored.
+     * <p>
+     * @throws IOException The file can not be read
+     */
+    private void load() throws IOException {
+        try (BufferedReader r = Files.newBufferedReader(file,
+                StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = r.readLine()) != null) {
+                ++nbLine;
+                String[] v = line.split(String.valueOf(SEPARATOR));
+                if (v.length != 3 && v.length != 4) {
+                    continue;
+                }
+                try {
+                    long nbError = Long.parseLong(v[1]);
+                    results.put(v[0], new RankResult(nbError,
+                            Long.parseLong(v[2]), v.length == 3 ? nbError
+                            : Long.parseLong(v[3])));
+                } catch (NumberFormatException ex) {
+                    //Truncated line
+                }
+            }
+        }
+    }
+}
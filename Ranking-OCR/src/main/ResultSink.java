@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package main;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Common interface of the outputs where the results are written.
+ * <p>
+ * A sink stays open for all the results of a run. The implementations must
+ * allow several threads to write results.
+ * <p>
+ * @author Nils Ryter
+ */
+public interface ResultSink extends Closeable {
+
+    /**
+     * Write the buffered results.
+     * <p>
+     * @throws IOException Results can not be written
+     */
+    public void flush() throws IOException;
+
+    /**
+     * Write a result.
+     * <p>
+     * @param fields Values of the result
+     * @throws IOException Result can not be written
+     */
+    public void write(String... fields) throws IOException;
+}
@@ -0,0 +1,334 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ranking;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Rank a single large document on several threads, by splitting it at anchor
+ * words.
+ * <p>
+ * The anchors are the words which appear once in the original and once in
+ * the comparative document, kept in the same order in both: the longest
+ * sequence of such words in increasing order in both documents is chosen, as
+ * the patience diff does. Both documents are split at some of the anchors in
+ * segments of about the same size, the segments are compared in parallel on a
+ * fork/join pool by a {@link SegmentRanker}, and their errors and words are
+ * summed up.
+ * <p>
+ * The sum is the result of the comparison of the whole documents if the
+ * comparison of the whole documents aligns the anchors to each other, which
+ * is the case of the true anchors. Otherwise, it is a result of the
+ * comparison of the segments which can differ a bit.
+ * <p>
+ * With a maximum error rate, each segment is compared to its end, but the
+ * segments not started yet are skipped as soon as the errors of the segments
+ * compared settle the verdict: when they exceed the maximum, or when they
+ * can't exceed it even if each word of the other segments were an error.
+ * <p>
+ * Called from a thread of a fork/join pool, the segments are compared in this
+ * pool, so the ranker can be shared by the threads of a batch. Otherwise, they
+ * are compared in the pool given to the constructor.
+ * <p>
+ * @author Nils Ryter
+ */
+public class AnchoredRanker implements Ranker {
+
+    //Default minimum number of original word of a segment
+    public static final int MIN_SEGMENT = 4096;
+    //Number of segment per thread, to balance the load of the threads
+    private static final int SEGMENT_PER_THREAD = 4;
+    //Minimum number of original word of a segment
+    private final int minSegment;
+    //Pool comparing the segments when not called from a fork/join pool
+    private final ForkJoinPool pool;
+    //Ranker comparing the segments
+    private final SegmentRanker ranker;
+
+    /**
+     * Create a new AnchoredRanker.
+     * <p>
+     * @param ranker Ranker comparing the segments
+     * @param pool Pool comparing the segments when not called from a fork/join
+     * pool, null for the common pool
+     */
+    public AnchoredRanker(SegmentRanker ranker, ForkJoinPool pool) {
+        this(ranker, pool, MIN_SEGMENT);
+    }
+
+    /**
+     * Create a new AnchoredRanker.
+     * <p>
+     * @param ranker Ranker comparing the segments
+     * @param pool Pool comparing the segments when not called from a fork/join
+     * pool, null for the common pool
+     * @param minSegment Minimum number of original word of a segment, at least
+     * 1
+     */
+    public AnchoredRanker(SegmentRanker ranker, ForkJoinPool pool,
+            int minSegment) {
+        if (minSegment < 1) {
+            throw new IllegalArgumentException("The minimum segment size is "
+                    + "lower than 1: " + minSegment);
+        }
+        this.ranker = ranker;
+        this.pool = pool == null ? ForkJoinPool.commonPool() : pool;
+        this.minSegment = minSegment;
+    }
+
+    /**
+     * Return the ranker comparing the segments.
+     * <p>
+     * @return Ranker
+     */
+    public SegmentRanker getRanker() {
+        return ranker;
+    }
+
+    @Override
+    public PreparedDocument prepare(String original) {
+        return ranker.prepare(original);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The documents read from readers are compared by the segment ranker
+     * without split, to keep its memory use.
+     */
+    @Override
+    public RankResult rank(Reader original, Reader comparative)
+            throws IOException {
+        return ranker.rank(original, comparative);
+    }
+
+    @Override
+    public RankResult rank(String original, String comparative) {
+        return rank(prepare(original), comparative);
+    }
+
+    @Override
+    public RankResult rank(PreparedDocument original, String comparative) {
+        return rank(original, comparative, -1);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The segments are compared to their end, the comparison stops between
+     * the segments.
+     */
+    @Override
+    public RankResult rank(PreparedDocument original, String comparative,
+            double maxRate) {
+        int[] ids = original.lookup(comparative);
+        ForkJoinPool current = ForkJoinTask.inForkJoinPool()
+                ? ForkJoinTask.getPool() : pool;
+        int[][] cuts = split(original, ids, anchors(original, ids),
+                current.getParallelism() * SEGMENT_PER_THREAD);
+        if (cuts[0].length <= 2) {
+            //Too small to be split
+            return maxRate < 0 ? ranker.rank(original, ids, 0,
+                    original.getNbWord(), 0, ids.length)
+                    : ranker.rank(original, comparative, maxRate);
+        }
+        Verdict verdict = maxRate < 0 ? null : new Verdict(
+                RankResult.maxError(maxRate, original.getNbWord()),
+                (long) original.getNbWord() + ids.length);
+        Segments task = new Segments(original, ids, cuts, 0,
+                cuts[0].length - 1, verdict);
+        return ForkJoinTask.inForkJoinPool() ? task.invoke()
+                : current.invoke(task);
+    }
+
+    /**
+     * Find the anchors of the documents: the longest sequence of words which
+     * appear once in both documents, in the same order in both.
+     * <p>
+     * @param original Original document
+     * @param comparative Identifiers of the words of the document to compare
+     * @return Positions of the anchors in the original document, then in the
+     * comparative document, in increasing order
+     */
+    static int[][] anchors(PreparedDocument original, int[] comparative) {
+        int[][] unique = PatienceRanker.uniqueWords(original, comparative);
+        int[] lis = PatienceRanker.increasing(unique[0], unique[0].length);
+        int[][] anchors = new int[2][lis.length];
+        for (int k = 0; k < lis.length; ++k) {
+            anchors[0][k] = unique[0][lis[k]];
+            anchors[1][k] = unique[1][lis[k]];
+        }
+        return anchors;
+    }
+
+    /**
+     * Choose the anchors where the documents are split. Each segment starts
+     * with its anchor and has at least the minimum number of original word.
+     * <p>
+     * @param original Original document
+     * @param comparative Identifiers of the words of the document to compare
+     * @param anchors Positions of the anchors returned by
+     * {@link #anchors(PreparedDocument, int[])}
+     * @param nbSegment Number of segment wanted
+     * @return Start of the segments in the original document, then in the
+     * comparative document, each ended by the number of words
+     */
+    int[][] split(PreparedDocument original, int[] comparative,
+            int[][] anchors, int nbSegment) {
+        int m = original.getNbWord();
+        int size = Math.max(minSegment, m / Math.max(nbSegment, 1));
+        int[] originalCuts = new int[anchors[0].length + 2];
+        int[] comparativeCuts = new int[anchors[0].length + 2];
+        int nb = 1;
+        for (int k = 0; k < anchors[0].length; ++k) {
+            int o = anchors[0][k];
+            if (o - originalCuts[nb - 1] >= size && m - o >= size) {
+                originalCuts[nb] = o;
+                comparativeCuts[nb] = anchors[1][k];
+                ++nb;
+            }
+        }
+        originalCuts[nb] = m;
+        comparativeCuts[nb] = comparative.length;
+        return new int[][]{Arrays.copyOf(originalCuts, nb + 1),
+            Arrays.copyOf(comparativeCuts, nb + 1)};
+    }
+
+    /**
+     * Comparison of a range of segments, split in two halves compared in
+     * parallel.
+     */
+    private class Segments extends RecursiveTask<RankResult> {
+
+        //Version of the serialized form
+        private static final long serialVersionUID = 1L;
+        //Identifiers of the words of the document to compare
+        private final int[] comparative;
+        //Start of the segments in both documents
+        private final int[][] cuts;
+        //First segment to compare
+        private final int from;
+        //Original document
+        private final PreparedDocument original;
+        //End of the segments to compare, excluded
+        private final int to;
+        //Errors of the segments compared, null to compare all the segments
+        private final Verdict verdict;
+
+        /**
+         * Create a new Segments.
+         * <p>
+         * @param original Original document
+         * @param comparative Identifiers of the words of the document to
+         * compare
+         * @param cuts Start of the segments in both documents
+         * @param from First segment to compare
+         * @param to End of the segments to compare, excluded
+         * @param verdict Errors of the segments compared with a maximum error
+         * rate, null to compare all the segments
+         */
+        Segments(PreparedDocument original, int[] comparative, int[][] cuts,
+                int from, int to, Verdict verdict) {
+            this.original = original;
+            this.comparative = comparative;
+            this.cuts = cuts;
+            this.from = from;
+            this.to = to;
+            this.verdict = verdict;
+        }
+
+        @Override
+        protected RankResult compute() {
+            if (to - from == 1) {
+                int nbWord = cuts[0][to] - cuts[0][from];
+                //Each word of both segments adds one error at most
+                long bound = (long) nbWord + cuts[1][to] - cuts[1][from];
+                if (verdict != null && verdict.isKnown()) {
+                    return new RankResult(0, nbWord, bound);
+                }
+                RankResult r = ranker.rank(original, comparative,
+                        cuts[0][from], cuts[0][to], cuts[1][from],
+                        cuts[1][to]);
+                if (verdict != null) {
+                    verdict.add(r.getNbError(), bound);
+                }
+                return r;
+            }
+            int mid = (from + to) >>> 1;
+            Segments left = new Segments(original, comparative, cuts, from,
+                    mid, verdict);
+            left.fork();
+            RankResult r = new Segments(original, comparative, cuts, mid, to,
+                    verdict).compute();
+            RankResult l = left.join();
+            return new RankResult(l.getNbError() + r.getNbError(),
+                    l.getNbWord() + r.getNbWord(),
+                    l.getNbErrorMax() + r.getNbErrorMax());
+        }
+    }
+
+    /**
+     * Errors of the segments compared so far, shared by the segments of a
+     * comparison with a maximum error rate.
+     */
+    private static final class Verdict {
+
+        //Number of error of the segments compared
+        private long errors = 0;
+        //Maximum number of error of a passed comparison
+        private final long maxError;
+        //Maximum number of error of the segments not compared
+        private long unknown;
+
+        /**
+         * Create a new Verdict, before any segment is compared.
+         * <p>
+         * @param maxError Maximum number of error of a passed comparison
+         * @param unknown Maximum number of error of all the segments
+         */
+        Verdict(long maxError, long unknown) {
+            this.maxError = maxError;
+            this.unknown = unknown;
+        }
+
+        /**
+         * Add the errors of a compared segment.
+         * <p>
+         * @param nbError Number of error of the segment
+         * @param bound Maximum number of error of the segment
+         */
+        synchronized void add(long nbError, long bound) {
+            errors += nbError;
+            unknown -= bound;
+        }
+
+        /**
+         * Check if the comparison passes or fails whatever the errors of the
+         * segments not compared.
+         * <p>
+         * @return True if the other segments can be skipped
+         */
+        synchronized boolean isKnown() {
+            return errors > maxError || errors + unknown <= maxError;
+        }
+    }
+}
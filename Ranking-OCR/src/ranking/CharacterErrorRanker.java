@@ -0,0 +1,453 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ranking;
+
+import events.AlignEvent;
+import events.NormalizeEvent;
+import java.util.Arrays;
+
+/**
+ * Rank a text document to a original document by its character error rate
+ * (CER).
+ * <p>
+ * The documents are normalized by a {@link Tokenizer}: the words are kept with
+ * their accents removed and joined by a single space, so the separators and
+ * the punctuation don't count as errors. The errors are the exact Levenshtein
+ * distance between the code points of the normalized documents, and the rate
+ * is the number of errors divided by the number of code points of the
+ * normalized original.
+ * <p>
+ * The distance is computed like in {@link WordErrorRanker}, with the
+ * bit-parallel algorithm of Myers limited to a diagonal band (Ukkonen) which
+ * is doubled until it contains the distance. The cost is about
+ * {@code O(n * k / 64)} for n characters and k errors, so books of millions of
+ * characters with few errors are compared in seconds. The match masks are
+ * only kept for the blocks of the band. With a maximum error rate, the band
+ * stops at the maximum number of error, and a page failing the rate is
+ * dropped as soon as all its blocks exceed it.
+ * <p>
+ * The normalized code points of a {@link PreparedDocument} and their alphabet
+ * are computed at its first comparison and kept in the document, so an
+ * original compared to many documents is normalized once.
+ * <p>
+ * @author Nils Ryter
+ */
+public class CharacterErrorRanker implements Ranker {
+
+    //Code point between two words of a normalized document
+    private static final int SEPARATOR = ' ';
+
+    /**
+     * Create a new CharacterErrorRanker.
+     */
+    public CharacterErrorRanker() {
+    }
+
+    @Override
+    public RankResult rank(String original, String comparative) {
+        long t = System.nanoTime();
+        return rankNormalized(t, new Normalized(normalize(original)),
+                comparative, Double.POSITIVE_INFINITY);
+    }
+
+    @Override
+    public RankResult rank(PreparedDocument original, String comparative) {
+        long t = System.nanoTime();
+        return rankNormalized(t, normalized(original), comparative,
+                Double.POSITIVE_INFINITY);
+    }
+
+    @Override
+    public RankResult rank(PreparedDocument original, String comparative,
+            double maxRate) {
+        long t = System.nanoTime();
+        return rankNormalized(t, normalized(original), comparative, maxRate);
+    }
+
+    /**
+     * Compute the Levenshtein distance between two code point sequences.
+     * <p>
+     * @param original Code points of the original document
+     * @param comparative Code points of the document to compare
+     * @return Number of code point insertions, deletions and substitutions
+     */
+    static int distance(int[] original, int[] comparative) {
+        return distance(original, comparative, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Compute the Levenshtein distance between two code point sequences, up
+     * to a limit.
+     * <p>
+     * @param original Code points of the original document
+     * @param comparative Code points of the document to compare
+     * @param limit Maximum distance to compute
+     * @return Number of code point insertions, deletions and substitutions if
+     * lower or equal to limit, a lower bound greater than limit otherwise
+     */
+    static int distance(int[] original, int[] comparative, int limit) {
+        return distance(new Normalized(original), comparative, limit);
+    }
+
+    /**
+     * Compute the Levenshtein distance between a normalized original and
+     * code points, up to a limit.
+     * <p>
+     * @param original Normalized original document
+     * @param comparative Code points of the document to compare
+     * @param limit Maximum distance to compute
+     * @return Number of code point insertions, deletions and substitutions if
+     * lower or equal to limit, a lower bound greater than limit otherwise
+     */
+    private static int distance(Normalized original, int[] comparative,
+            int limit) {
+        int[] o = original.symbols;
+        int m = o.length;
+        int n = comparative.length;
+        if (m == 0 || n == 0) {
+            return m + n;
+        }
+        if (Math.abs(m - n) > limit) {
+            return Math.abs(m - n);
+        }
+        //Replace the code points by their index in the original alphabet
+        int[] alphabet = original.alphabet;
+        int[] c = new int[n];
+        for (int j = 0; j < n; ++j) {
+            c[j] = Math.max(Arrays.binarySearch(alphabet, comparative[j]), -1);
+        }
+        //Start with a small band and double it until the distance fits in
+        int k = Math.min(Math.max(Math.abs(m - n), 64), limit);
+        while (true) {
+            int d = distance(o, c, alphabet.length, k);
+            if (d <= k || k >= Math.max(m, n)) {
+                return d;
+            } else if (k >= limit) {
+                //The cells out of the band are over-estimated
+                return k + 1;
+            }
+            k = k < limit / 2 ? k << 1 : limit;
+        }
+    }
+
+    /**
+     * Normalize a text to code points.
+     * <p>
+     * @param text Text to normalize
+     * @return Code points of the words, separated by a space
+     */
+    static int[] normalize(CharSequence text) {
+        NormalizeEvent event = new NormalizeEvent();
+        event.begin();
+        int[] codePoints = new int[16];
+        int size = 0;
+        Tokenizer tokenizer = new Tokenizer(text);
+        while (tokenizer.next()) {
+            CharSequence word = tokenizer.token();
+            if (codePoints.length < size + word.length() + 1) {
+                codePoints = Arrays.copyOf(codePoints,
+                        Math.max(codePoints.length * 2,
+                                size + word.length() + 1));
+            }
+            if (size > 0) {
+                codePoints[size++] = SEPARATOR;
+            }
+            for (int i = 0; i < word.length();) {
+                int cp = Character.codePointAt(word, i);
+                codePoints[size++] = cp;
+                i += Character.charCount(cp);
+            }
+        }
+        codePoints = Arrays.copyOf(codePoints, size);
+        commit(event, codePoints);
+        return codePoints;
+    }
+
+    /**
+     * Normalize a prepared document to code points.
+     * <p>
+     * @param document Prepared document
+     * @return Code points of the words, separated by a space
+     */
+    static int[] normalize(PreparedDocument document) {
+        NormalizeEvent event = new NormalizeEvent();
+        event.begin();
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < document.getNbWord(); ++i) {
+            if (i > 0) {
+                text.append((char) SEPARATOR);
+            }
+            text.append(document.getWord(document.getId(i)));
+        }
+        int[] codePoints = text.codePoints().toArray();
+        commit(event, codePoints);
+        return codePoints;
+    }
+
+    /**
+     * Return the normalized code points of a prepared document, computed at
+     * its first comparison.
+     * <p>
+     * @param document Prepared document
+     * @return Normalized document, kept in the prepared document
+     */
+    private static Normalized normalized(PreparedDocument document) {
+        Normalized n = document.getCharacters();
+        if (n == null) {
+            //Several threads may normalize it at once, with the same result
+            n = new Normalized(normalize(document));
+            document.setCharacters(n);
+        }
+        return n;
+    }
+
+    /**
+     * Compare a normalized original to a document, up to a maximum error
+     * rate.
+     * <p>
+     * @param start Start time of the normalization
+     * @param original Normalized original document
+     * @param comparative Document to compare to original
+     * @param maxRate Maximum error rate in percent, infinite to compute the
+     * exact distance
+     * @return Result of the comparison, bounded if the errors exceed maxRate
+     */
+    private static RankResult rankNormalized(long start, Normalized normalized,
+            String comparative, double maxRate) {
+        int[] original = normalized.symbols;
+        RankingStats stats = RankingStats.getInstance();
+        int[] c = normalize(comparative);
+        long t = System.nanoTime();
+        stats.record(RankingStats.Phase.TOKENIZE, t - start);
+        AlignEvent event = new AlignEvent();
+        event.begin();
+        long maxError = RankResult.maxError(maxRate, original.length);
+        int limit = (int) Math.min(Math.max(maxError, -1), Integer.MAX_VALUE);
+        int nbError = distance(normalized, c, limit);
+        stats.record(RankingStats.Phase.ALIGN, System.nanoTime() - t);
+        event.end();
+        if (event.shouldCommit()) {
+            event.ranker = CharacterErrorRanker.class.getSimpleName();
+            event.originalWords = original.length;
+            event.comparativeWords = c.length;
+            event.errors = nbError;
+            event.commitDocuments();
+        }
+        return new RankResult(nbError, original.length, nbError <= limit
+                ? nbError : Math.max(original.length, c.length));
+    }
+
+    /**
+     * Return the sorted distinct code points of a sequence.
+     * <p>
+     * @param codePoints Code points
+     * @return Alphabet of the sequence
+     */
+    private static int[] alphabet(int[] codePoints) {
+        int[] sorted = codePoints.clone();
+        Arrays.sort(sorted);
+        int size = 0;
+        for (int i = 0; i < sorted.length; ++i) {
+            if (size == 0 || sorted[size - 1] != sorted[i]) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, size);
+    }
+
+    /**
+     * Commit a normalization event if it is recorded.
+     * <p>
+     * @param event Event begun before the normalization
+     * @param codePoints Normalized document
+     */
+    private static void commit(NormalizeEvent event, int[] codePoints) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.codePoints = codePoints.length;
+            event.commitDocuments();
+        }
+    }
+
+    /**
+     * Compute the Levenshtein distance with the cells of the matrix limited to
+     * a diagonal band.
+     * <p>
+     * A cell is in the band if the shortest path from the first cell to the
+     * last cell through it costs at most k. The blocks whose cells are all
+     * greater than k are dropped too, so the computation stops as soon as the
+     * distance is known to be greater than k. The match masks are stored for
+     * the blocks of the band only, in a ring of slots reused when the band
+     * moves down.
+     * <p>
+     * @param original Alphabet index of the original code points
+     * @param comparative Alphabet index of the comparative code points, -1 for
+     * the code points missing from the original
+     * @param nbSymbol Size of the alphabet
+     * @param k Maximum distance, at least the difference of length of the
+     * documents
+     * @return Distance if lower or equal to k, k + 1 otherwise
+     */
+    private static int distance(int[] original, int[] comparative,
+            int nbSymbol, int k) {
+        int m = original.length;
+        int n = comparative.length;
+        int nbBlock = (m + 63) >>> 6;
+        //Diagonals of the band, relative to the column
+        int extent = (k - Math.abs(m - n)) / 2;
+        int above = Math.min(0, m - n) - extent;
+        int below = Math.max(0, m - n) + extent;
+        int nbSlot = Integer.highestOneBit(
+                (int) Math.min(nbBlock, ((long) below - above) / 64 + 3)) << 1;
+        int slotMask = nbSlot - 1;
+        //Match masks of each symbol for the blocks of the band, the last
+        //symbol is the one of the code points missing from the original
+        long[] peq = new long[(nbSymbol + 1) * nbSlot];
+        //Vertical deltas of the current column, +1 and -1
+        long[] pv = new long[nbBlock];
+        long[] mv = new long[nbBlock];
+        //Value of the last row of each block in the current column
+        int[] score = new int[nbBlock];
+        int lastShift = (m - 1) & 63;
+        int firstBlock = 0;
+        int lastBlock = -1;
+        int nbFilled = 0;
+        for (int j = 1; j <= n; ++j) {
+            //Blocks crossing the band in this column
+            int bandStart = Math.floorDiv(j + above - 1, 64);
+            while (firstBlock < bandStart) {
+                clear(peq, original, firstBlock++, nbSlot, slotMask);
+            }
+            int bandEnd = Math.min(nbBlock - 1,
+                    Math.floorDiv(j + below - 1, 64));
+            while (lastBlock < bandEnd) {
+                //New block below the band, vertical deltas +1
+                ++lastBlock;
+                if (lastBlock == nbFilled) {
+                    int to = Math.min(m, (lastBlock + 1) << 6);
+                    for (int i = lastBlock << 6; i < to; ++i) {
+                        peq[original[i] * nbSlot + (lastBlock & slotMask)]
+                                |= 1L << i;
+                    }
+                    ++nbFilled;
+                }
+                pv[lastBlock] = -1L;
+                mv[lastBlock] = 0;
+                score[lastBlock] = (lastBlock == 0 ? 0 : score[lastBlock - 1])
+                        + Math.min(64, m - (lastBlock << 6));
+            }
+            int symbol = comparative[j - 1];
+            column(peq, (symbol < 0 ? nbSymbol : symbol) * nbSlot, slotMask,
+                    pv, mv, score, firstBlock, lastBlock,
+                    lastBlock == nbBlock - 1 ? lastShift : 63);
+            //Drop the blocks whose cells are all greater than k
+            while (lastBlock >= firstBlock && score[lastBlock] - 63 > k) {
+                --lastBlock;
+            }
+            while (firstBlock <= lastBlock && score[firstBlock] - 63 > k) {
+                clear(peq, original, firstBlock++, nbSlot, slotMask);
+            }
+            if (firstBlock > lastBlock) {
+                return k + 1;
+            }
+        }
+        return lastBlock == nbBlock - 1 ? score[lastBlock] : k + 1;
+    }
+
+    /**
+     * Clear the match masks of a block leaving the band.
+     * <p>
+     * @param peq Match masks
+     * @param original Alphabet index of the original code points
+     * @param block Block to clear
+     * @param nbSlot Number of blocks in the ring of masks
+     * @param slotMask Mask of the slot of a block in the ring
+     */
+    private static void clear(long[] peq, int[] original, int block,
+            int nbSlot, int slotMask) {
+        int to = Math.min(original.length, (block + 1) << 6);
+        for (int i = block << 6; i < to; ++i) {
+            peq[original[i] * nbSlot + (block & slotMask)] = 0;
+        }
+    }
+
+    /**
+     * Compute the next column of the blocks of the band.
+     * <p>
+     * @param peq Match masks
+     * @param base Start of the masks of the comparative symbol
+     * @param slotMask Mask of the slot of a block in the ring
+     * @param pv Vertical deltas +1 of each block
+     * @param mv Vertical deltas -1 of each block
+     * @param score Value of the last row of each block
+     * @param firstBlock First block of the band
+     * @param lastBlock Last block of the band
+     * @param lastShift Position of the last row in the last block
+     */
+    private static void column(long[] peq, int base, int slotMask, long[] pv,
+            long[] mv, int[] score, int firstBlock, int lastBlock,
+            int lastShift) {
+        //Horizontal delta entering the block, +1 above the band
+        long hinPos = 1;
+        long hinNeg = 0;
+        for (int b = firstBlock; b <= lastBlock; ++b) {
+            long p = pv[b];
+            long mm = mv[b];
+            long e = peq[base + (b & slotMask)];
+            long xv = e | mm;
+            e |= hinNeg;
+            long xh = (((e & p) + p) ^ p) | e;
+            long ph = mm | ~(xh | p);
+            long mh = p & xh;
+            int shift = b == lastBlock ? lastShift : 63;
+            long houtPos = (ph >>> shift) & 1;
+            long houtNeg = (mh >>> shift) & 1;
+            ph = (ph << 1) | hinPos;
+            mh = (mh << 1) | hinNeg;
+            pv[b] = mh | ~(xv | ph);
+            mv[b] = ph & xv;
+            score[b] += (int) (houtPos - houtNeg);
+            hinPos = houtPos;
+            hinNeg = houtNeg;
+        }
+    }
+
+    /**
+     * Original document normalized to code points, given as indexes in its
+     * alphabet. Immutable, so it can be shared by several threads.
+     */
+    static final class Normalized {
+
+        //Sorted distinct code points of the document
+        private final int[] alphabet;
+        //Alphabet index of each code point of the document
+        private final int[] symbols;
+
+        /**
+         * Create a new Normalized.
+         * <p>
+         * @param codePoints Normalized code points of the document
+         */
+        Normalized(int[] codePoints) {
+            alphabet = alphabet(codePoints);
+            symbols = new int[codePoints.length];
+            for (int i = 0; i < codePoints.length; ++i) {
+                symbols[i] = Arrays.binarySearch(alphabet, codePoints[i]);
+            }
+        }
+    }
+}
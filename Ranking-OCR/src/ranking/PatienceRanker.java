@@ -0,0 +1,424 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ranking;
+
+import events.AlignEvent;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Rank a text document to a original document by aligning the words which
+ * appear once in both documents, for text whose blocks are reordered.
+ * <p>
+ * The OCR of a page in several columns often outputs whole blocks in the
+ * wrong order. This ranker first finds the words which appear once in both
+ * documents, and groups them in blocks of words following each other in both
+ * documents. The blocks out of the longest sequence of blocks in the same
+ * order in both documents are moved back to their place in the comparative
+ * document, each move counting as one error.
+ * <p>
+ * The documents are then aligned as the patience diff does: the longest
+ * sequence of words appearing once in both documents, in the same order in
+ * both, is found in O(n log n) and matched, then the gaps between these
+ * anchors are aligned the same way, with their own unique words. A gap
+ * without unique word is compared by its exact edit distance, computed as
+ * {@link WordErrorRanker} does for the large gaps. The errors are the words
+ * inserted, deleted or substituted, plus the moves.
+ * <p>
+ * @author Nils Ryter
+ */
+public class PatienceRanker implements Ranker {
+
+    //Maximum number of cell of the matrix of a gap compared row by row
+    private static final long MAX_GAP_CELLS = 1 << 16;
+
+    /**
+     * Create a new PatienceRanker.
+     */
+    public PatienceRanker() {
+    }
+
+    @Override
+    public RankResult rank(String original, String comparative) {
+        return rank(prepare(original), comparative);
+    }
+
+    @Override
+    public RankResult rank(PreparedDocument original, String comparative) {
+        return rank(original, original.lookup(comparative));
+    }
+
+    /**
+     * Compare the documents given as word identifiers.
+     * <p>
+     * @param original Original document
+     * @param comparative Identifiers of the words of the document to compare,
+     * {@link WordDictionary#UNKNOWN} for the words missing from the original
+     * @return Result of the comparison
+     */
+    public RankResult rank(PreparedDocument original, int[] comparative) {
+        AlignEvent event = new AlignEvent();
+        event.begin();
+        long t = System.nanoTime();
+        Alignment a = new Alignment(original, comparative);
+        a.reorder();
+        a.align();
+        RankingStats.getInstance().record(RankingStats.Phase.ALIGN,
+                System.nanoTime() - t);
+        event.end();
+        if (event.shouldCommit()) {
+            event.ranker = getClass().getSimpleName();
+            event.originalWords = original.getNbWord();
+            event.comparativeWords = comparative.length;
+            event.errors = a.nbError;
+            event.commitDocuments();
+        }
+        return new RankResult(a.nbError, original.getNbWord());
+    }
+
+    /**
+     * Return the longest strictly increasing subsequence of values, found by
+     * patience sorting in O(n log n).
+     * <p>
+     * @param values Values
+     * @param length Number of values to use, from the first
+     * @return Indexes of the values of the subsequence, in increasing order
+     */
+    static int[] increasing(int[] values, int length) {
+        //Index of the smallest last value of the subsequences of each length
+        int[] tails = new int[length];
+        int[] previous = new int[length];
+        int nb = 0;
+        for (int i = 0; i < length; ++i) {
+            int lo = 0;
+            int hi = nb;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (values[tails[mid]] < values[i]) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            previous[i] = lo > 0 ? tails[lo - 1] : -1;
+            tails[lo] = i;
+            if (lo == nb) {
+                ++nb;
+            }
+        }
+        int[] indexes = new int[nb];
+        for (int k = nb - 1, i = nb > 0 ? tails[nb - 1] : -1; k >= 0;
+                --k, i = previous[i]) {
+            indexes[k] = i;
+        }
+        return indexes;
+    }
+
+    /**
+     * Find the words which appear once in the original and once in the
+     * comparative document.
+     * <p>
+     * @param original Original document
+     * @param comparative Identifiers of the words of the document to compare
+     * @return Positions of the words in the original document, then in the
+     * comparative document, in the order of the comparative document
+     */
+    static int[][] uniqueWords(PreparedDocument original, int[] comparative) {
+        //Count the occurrences of the words in the comparative, up to 2
+        byte[] counts = new byte[original.getNbDifferentWord()];
+        for (int id : comparative) {
+            if (id >= 0 && counts[id] < 2) {
+                ++counts[id];
+            }
+        }
+        int[] inComparative = new int[comparative.length];
+        int[] inOriginal = new int[comparative.length];
+        int nb = 0;
+        for (int j = 0; j < comparative.length; ++j) {
+            int id = comparative[j];
+            if (id >= 0 && counts[id] == 1
+                    && original.getOccurrences(id) == 1) {
+                inComparative[nb] = j;
+                inOriginal[nb] = original.getPosition(id, 0);
+                ++nb;
+            }
+        }
+        return new int[][]{Arrays.copyOf(inOriginal, nb),
+            Arrays.copyOf(inComparative, nb)};
+    }
+
+    /**
+     * State of the comparison of two documents.
+     */
+    private static class Alignment {
+
+        //Document to compare, with the moved blocks back to their place
+        private int[] comparative;
+        //Occurrences of each word in the comparative gap, up to 2
+        private final byte[] comparativeCounts;
+        //Number of errors
+        private long nbError = 0;
+        //Identifiers of the original document words
+        private final int[] original;
+        //Occurrences of each word in the original gap, up to 2
+        private final byte[] originalCounts;
+        //Original document
+        private final PreparedDocument prepared;
+        //Position of each word appearing once in the original gap
+        private final int[] positions;
+
+        /**
+         * Create a new Alignment.
+         * <p>
+         * @param original Original document
+         * @param comparative Identifiers of the comparative document words
+         */
+        Alignment(PreparedDocument original, int[] comparative) {
+            this.prepared = original;
+            this.original = original.ids;
+            this.comparative = comparative;
+            int nbId = original.getNbDifferentWord();
+            originalCounts = new byte[nbId];
+            comparativeCounts = new byte[nbId];
+            positions = new int[nbId];
+        }
+
+        /**
+         * Align the documents, gap after gap.
+         */
+        void align() {
+            Deque<int[]> gaps = new ArrayDeque<>();
+            gaps.push(new int[]{0, original.length, 0, comparative.length});
+            while (!gaps.isEmpty()) {
+                int[] g = gaps.pop();
+                int oLo = g[0];
+                int oHi = g[1];
+                int cLo = g[2];
+                int cHi = g[3];
+                //Same first and last words, so skip them
+                while (oLo < oHi && cLo < cHi
+                        && original[oLo] == comparative[cLo]) {
+                    ++oLo;
+                    ++cLo;
+                }
+                while (oLo < oHi && cLo < cHi
+                        && original[oHi - 1] == comparative[cHi - 1]) {
+                    --oHi;
+                    --cHi;
+                }
+                if (oLo == oHi || cLo == cHi) {
+                    nbError += (oHi - oLo) + (cHi - cLo);
+                    continue;
+                }
+                int[][] anchors = anchors(oLo, oHi, cLo, cHi);
+                if (anchors[0].length == 0) {
+                    nbError += distance(oLo, oHi, cLo, cHi);
+                    continue;
+                }
+                //Align the gaps between the anchors, the anchors match
+                int o = oLo;
+                int c = cLo;
+                for (int k = 0; k < anchors[0].length; ++k) {
+                    gaps.push(new int[]{o, anchors[0][k], c, anchors[1][k]});
+                    o = anchors[0][k] + 1;
+                    c = anchors[1][k] + 1;
+                }
+                gaps.push(new int[]{o, oHi, c, cHi});
+            }
+        }
+
+        /**
+         * Find the longest sequence of words appearing once in both gaps, in
+         * the same order in both.
+         * <p>
+         * @param oLo Start of the original gap
+         * @param oHi End of the original gap, excluded
+         * @param cLo Start of the comparative gap
+         * @param cHi End of the comparative gap, excluded
+         * @return Positions of the anchors in the original, then in the
+         * comparative document
+         */
+        private int[][] anchors(int oLo, int oHi, int cLo, int cHi) {
+            for (int i = oLo; i < oHi; ++i) {
+                int id = original[i];
+                if (originalCounts[id] < 2) {
+                    ++originalCounts[id];
+                    positions[id] = i;
+                }
+            }
+            for (int j = cLo; j < cHi; ++j) {
+                int id = comparative[j];
+                if (id >= 0 && comparativeCounts[id] < 2) {
+                    ++comparativeCounts[id];
+                }
+            }
+            int[] inOriginal = new int[Math.min(oHi - oLo, cHi - cLo)];
+            int[] inComparative = new int[inOriginal.length];
+            int nb = 0;
+            for (int j = cLo; j < cHi; ++j) {
+                int id = comparative[j];
+                if (id >= 0 && comparativeCounts[id] == 1
+                        && originalCounts[id] == 1) {
+                    inOriginal[nb] = positions[id];
+                    inComparative[nb] = j;
+                    ++nb;
+                }
+            }
+            //Clear the counts for the next gap
+            for (int i = oLo; i < oHi; ++i) {
+                originalCounts[original[i]] = 0;
+            }
+            for (int j = cLo; j < cHi; ++j) {
+                if (comparative[j] >= 0) {
+                    comparativeCounts[comparative[j]] = 0;
+                }
+            }
+            int[] lis = increasing(inOriginal, nb);
+            int[][] anchors = new int[2][lis.length];
+            for (int k = 0; k < lis.length; ++k) {
+                anchors[0][k] = inOriginal[lis[k]];
+                anchors[1][k] = inComparative[lis[k]];
+            }
+            return anchors;
+        }
+
+        /**
+         * Compute the edit distance between gaps without anchor, with the
+         * full matrix for the small gaps and the banded bit-parallel
+         * algorithm of {@link WordErrorRanker} for the large gaps.
+         * <p>
+         * @param oLo Start of the original gap
+         * @param oHi End of the original gap, excluded
+         * @param cLo Start of the comparative gap
+         * @param cHi End of the comparative gap, excluded
+         * @return Number of word insertions, deletions and substitutions
+         */
+        private int distance(int oLo, int oHi, int cLo, int cHi) {
+            int m = oHi - oLo;
+            int n = cHi - cLo;
+            if ((long) m * n > MAX_GAP_CELLS) {
+                PreparedDocument segment = m == original.length ? prepared
+                        : new PreparedDocument(prepared, oLo, oHi);
+                return WordErrorRanker.distance(segment,
+                        Arrays.copyOfRange(comparative, cLo, cHi));
+            }
+            int[] row = new int[n + 1];
+            for (int j = 0; j <= n; ++j) {
+                row[j] = j;
+            }
+            for (int i = 1; i <= m; ++i) {
+                int diag = row[0];
+                row[0] = i;
+                int id = original[oLo + i - 1];
+                for (int j = 1; j <= n; ++j) {
+                    int up = row[j];
+                    row[j] = Math.min(Math.min(up, row[j - 1]) + 1,
+                            diag + (id == comparative[cLo + j - 1] ? 0 : 1));
+                    diag = up;
+                }
+            }
+            return row[n];
+        }
+
+        /**
+         * Find the blocks of the comparative document which are out of order
+         * and move them back to their place, counting one error by move.
+         * <p>
+         * A block is a sequence of words appearing once in both documents,
+         * following each other in both, extended to the next and previous
+         * words matching in both. The blocks of the longest sequence of
+         * blocks in the same order in both documents stay in place.
+         */
+        void reorder() {
+            int[][] unique = uniqueWords(prepared, comparative);
+            int nb = unique[0].length;
+            if (nb == 0) {
+                return;
+            }
+            //Rank of each unique word in the original order
+            int[] ranks = new int[nb];
+            int[] byPosition = new int[original.length];
+            Arrays.fill(byPosition, -1);
+            for (int k = 0; k < nb; ++k) {
+                byPosition[unique[0][k]] = k;
+            }
+            for (int i = 0, r = 0; i < original.length; ++i) {
+                if (byPosition[i] >= 0) {
+                    ranks[byPosition[i]] = r++;
+                }
+            }
+            //First unique word of each block, in the comparative order
+            int[] firsts = new int[nb + 1];
+            int nbBlock = 0;
+            for (int k = 0; k < nb; ++k) {
+                if (k == 0 || ranks[k] != ranks[k - 1] + 1) {
+                    firsts[nbBlock++] = k;
+                }
+            }
+            firsts[nbBlock] = nb;
+            int[] keys = new int[nbBlock];
+            for (int b = 0; b < nbBlock; ++b) {
+                keys[b] = ranks[firsts[b]];
+            }
+            int nbMove = nbBlock - increasing(keys, nbBlock).length;
+            if (nbMove == 0) {
+                return;
+            }
+            //Start of each block in the comparative document
+            int n = comparative.length;
+            int[] starts = new int[nbBlock + 1];
+            int end = 0;
+            for (int b = 0; b < nbBlock; ++b) {
+                int first = firsts[b];
+                int last = firsts[b + 1] - 1;
+                int s = unique[1][first];
+                int shift = unique[0][first] - s;
+                while (s > end && s + shift > 0
+                        && comparative[s - 1] == original[s - 1 + shift]) {
+                    --s;
+                }
+                starts[b] = s;
+                //Extend the block to the next matching words
+                int next = b + 1 < nbBlock ? unique[1][firsts[b + 1]] : n;
+                end = unique[1][last] + 1;
+                shift = unique[0][last] - unique[1][last];
+                while (end < next && end + shift < original.length
+                        && comparative[end] == original[end + shift]) {
+                    ++end;
+                }
+            }
+            starts[nbBlock] = n;
+            //Copy the words before the first block, then the blocks sorted
+            Integer[] order = new Integer[nbBlock];
+            for (int b = 0; b < nbBlock; ++b) {
+                order[b] = b;
+            }
+            Arrays.sort(order, (a, b) -> Integer.compare(keys[a], keys[b]));
+            int[] reordered = new int[n];
+            System.arraycopy(comparative, 0, reordered, 0, starts[0]);
+            int p = starts[0];
+            for (Integer b : order) {
+                int length = starts[b + 1] - starts[b];
+                System.arraycopy(comparative, starts[b], reordered, p, length);
+                p += length;
+            }
+            comparative = reordered;
+            nbError += nbMove;
+        }
+    }
+}
@@ -0,0 +1,374 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ranking;
+
+import events.TokenizeEvent;
+import java.util.Arrays;
+
+/**
+ * Original document prepared once to be compared to many documents.
+ * <p>
+ * The document is split in words by a {@link Tokenizer}, its words are
+ * interned in a {@link WordDictionary} and the positions of each word are
+ * indexed. A prepared document is immutable, so it can be shared by several
+ * threads.
+ * <p>
+ * @author Nils Ryter
+ */
+public final class PreparedDocument {
+
+    //Code points of the document for CharacterErrorRanker, set when needed
+    private volatile CharacterErrorRanker.Normalized characters = null;
+    //Dictionary of the document words, never changed after the preparation
+    private final WordDictionary dictionary;
+    //Identifier of each word of the document
+    final int[] ids;
+    //Start of the positions of each index in positions
+    private final int[] offsets;
+    //Positions of the words, grouped by index
+    private final int[] positions;
+    //Hash table of identifiers plus one of a segment, the slot being the
+    //index of the identifier, zero if the slot is empty. Null for a whole
+    //document, whose indexes are the identifiers.
+    private final int[] table;
+    //Text of the document
+    private final String text;
+
+    /**
+     * Prepare a document.
+     * <p>
+     * @param text Text of the document
+     */
+    public PreparedDocument(String text) {
+        TokenizeEvent event = new TokenizeEvent();
+        event.begin();
+        long t = System.nanoTime();
+        this.text = text;
+        dictionary = new WordDictionary(text.length() / 8);
+        ids = new Tokenizer().intern(text, dictionary);
+        table = null;
+        offsets = offsets(ids, dictionary.size());
+        positions = positions(ids, offsets);
+        RankingStats.getInstance().record(RankingStats.Phase.TOKENIZE,
+                System.nanoTime() - t);
+        event.end();
+        if (event.shouldCommit()) {
+            event.originalSide = true;
+            event.characters = text.length();
+            event.words = ids.length;
+            event.commitDocuments();
+        }
+    }
+
+    /**
+     * Rebuild a document from its words, tokenized before.
+     * <p>
+     * @param text Text of the document
+     * @param words Different words of the document, indexed by identifier
+     * @param ids Identifier of each word of the document
+     */
+    PreparedDocument(String text, String[] words, int[] ids) {
+        this.text = text;
+        this.ids = ids;
+        dictionary = new WordDictionary(words.length);
+        for (String w : words) {
+            dictionary.intern(w);
+        }
+        table = null;
+        offsets = offsets(ids, words.length);
+        positions = positions(ids, offsets);
+    }
+
+    /**
+     * Extract a segment of a document. The segment shares the dictionary of
+     * the document, so the identifiers of its words don't change. Its text
+     * isn't kept. Its position index is sized to the words of the segment,
+     * not to the dictionary.
+     * <p>
+     * @param document Document to extract from
+     * @param from First word of the segment
+     * @param to End of the segment, excluded
+     */
+    PreparedDocument(PreparedDocument document, int from, int to) {
+        text = null;
+        dictionary = document.dictionary;
+        ids = Arrays.copyOfRange(document.ids, from, to);
+        //At least twice as many slots as words, so the table is half full
+        table = new int[Math.max(16,
+                Integer.highestOneBit(Math.max(1, ids.length)) << 2)];
+        int[] indexes = new int[ids.length];
+        int mask = table.length - 1;
+        for (int i = 0; i < ids.length; ++i) {
+            int slot = hash(ids[i]) & mask;
+            while (table[slot] != 0 && table[slot] != ids[i] + 1) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = ids[i] + 1;
+            indexes[i] = slot;
+        }
+        offsets = offsets(indexes, table.length);
+        positions = positions(indexes, offsets);
+    }
+
+    /**
+     * Return the normalized code points of the document, if computed before.
+     * <p>
+     * @return Normalized code points, or null
+     */
+    CharacterErrorRanker.Normalized getCharacters() {
+        return characters;
+    }
+
+    /**
+     * Return the identifier of the word at a position.
+     * <p>
+     * @param position Position of the word in the document
+     * @return Identifier of the word
+     */
+    public int getId(int position) {
+        return ids[position];
+    }
+
+    /**
+     * Return the number of different words in the document.
+     * <p>
+     * @return Number of different words
+     */
+    public int getNbDifferentWord() {
+        return dictionary.size();
+    }
+
+    /**
+     * Return the number of words in the document.
+     * <p>
+     * @return Number of words
+     */
+    public int getNbWord() {
+        return ids.length;
+    }
+
+    /**
+     * Return how many times a word appears in the document.
+     * <p>
+     * @param id Identifier of the word
+     * @return Number of occurrence, 0 for {@link WordDictionary#UNKNOWN}
+     */
+    public int getOccurrences(int id) {
+        int i = index(id);
+        return i < 0 ? 0 : offsets[i + 1] - offsets[i];
+    }
+
+    /**
+     * Return the index of the first occurrence of a word at or after a
+     * position.
+     * <p>
+     * @param id Identifier of the word
+     * @param position Position in the document
+     * @return Index of the occurrence, the number of occurrence if there is
+     * none
+     */
+    public int getOccurrenceFrom(int id, int position) {
+        int i = index(id);
+        return i < 0 ? 0 : find(i, position) - offsets[i];
+    }
+
+    /**
+     * Return the position of an entry of the position index.
+     * <p>
+     * @param entry Entry of the position index
+     * @return Position of a word in the document
+     */
+    int getPositionAt(int entry) {
+        return positions[entry];
+    }
+
+    /**
+     * Return the position of an occurrence of a word.
+     * <p>
+     * @param id Identifier of the word
+     * @param n Index of the occurrence, from 0 to the number of occurrence
+     * excluded
+     * @return Position of the occurrence in the document, the occurrences are
+     * sorted by position
+     * @throws IndexOutOfBoundsException The word doesn't occur n + 1 times in
+     * the document
+     */
+    public int getPosition(int id, int n) {
+        int i = index(id);
+        if (i < 0 || n < 0 || n >= offsets[i + 1] - offsets[i]) {
+            throw new IndexOutOfBoundsException("No occurrence " + n
+                    + " of the word " + id);
+        }
+        return positions[offsets[i] + n];
+    }
+
+    /**
+     * Return the text of the document.
+     * <p>
+     * @return Text, null for a segment of a document
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Return the word of an identifier.
+     * <p>
+     * @param id Identifier of the word
+     * @return Normalized word
+     */
+    public String getWord(int id) {
+        return dictionary.getWord(id);
+    }
+
+    /**
+     * Keep the normalized code points of the document.
+     * <p>
+     * @param characters Normalized code points
+     */
+    void setCharacters(CharacterErrorRanker.Normalized characters) {
+        this.characters = characters;
+    }
+
+    /**
+     * Split a text to compare to this document and return the identifiers of
+     * its words.
+     * <p>
+     * @param text Text to split
+     * @return Identifier of each word, {@link WordDictionary#UNKNOWN} for the
+     * words which aren't in this document
+     */
+    public int[] lookup(CharSequence text) {
+        TokenizeEvent event = new TokenizeEvent();
+        event.begin();
+        long t = System.nanoTime();
+        int[] words = new Tokenizer().lookup(text, dictionary);
+        RankingStats.getInstance().record(RankingStats.Phase.TOKENIZE,
+                System.nanoTime() - t);
+        event.end();
+        if (event.shouldCommit()) {
+            event.characters = text.length();
+            event.words = words.length;
+            event.commitDocuments();
+        }
+        return words;
+    }
+
+    /**
+     * Compute the hash of an identifier, with the high bits spread on the low
+     * bits.
+     * <p>
+     * @param id Identifier of a word
+     * @return Hash of the identifier
+     */
+    private static int hash(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Return the first entry of the position index for a word at or after a
+     * position. The entries of a word are sorted by position, from the
+     * entry of its first occurrence.
+     * <p>
+     * @param id Identifier of the word
+     * @param position Position in the document
+     * @return Entry of the position index, the entry after the occurrences of
+     * the word if there is none
+     */
+    int getEntryFrom(int id, int position) {
+        int i = index(id);
+        return i < 0 ? 0 : find(i, position);
+    }
+
+    /**
+     * Search the first entry of an index at or after a position.
+     * <p>
+     * @param i Index of the word
+     * @param position Position in the document
+     * @return Entry of the position index
+     */
+    private int find(int i, int position) {
+        int lo = offsets[i];
+        int hi = offsets[i + 1];
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (positions[mid] < position) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Return the index of a word in the position index.
+     * <p>
+     * @param id Identifier of the word
+     * @return Index of the word, -1 if the word isn't in the document
+     */
+    private int index(int id) {
+        if (table == null || id < 0) {
+            return id;
+        }
+        int mask = table.length - 1;
+        int slot = hash(id) & mask;
+        while (table[slot] != 0) {
+            if (table[slot] == id + 1) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Count the occurrences of each word and return the start of the
+     * positions of each index.
+     * <p>
+     * @param indexes Index of each word of the document
+     * @param nbIndex Number of index
+     * @return Start of the positions of each index, plus the end
+     */
+    private static int[] offsets(int[] indexes, int nbIndex) {
+        int[] offsets = new int[nbIndex + 1];
+        for (int i : indexes) {
+            ++offsets[i + 1];
+        }
+        for (int i = 0; i < nbIndex; ++i) {
+            offsets[i + 1] += offsets[i];
+        }
+        return offsets;
+    }
+
+    /**
+     * Index the positions of the words, grouped by index.
+     * <p>
+     * @param indexes Index of each word of the document
+     * @param offsets Start of the positions of each index
+     * @return Positions of the words
+     */
+    private static int[] positions(int[] indexes, int[] offsets) {
+        int[] positions = new int[indexes.length];
+        int[] next = offsets.clone();
+        for (int i = 0; i < indexes.length; ++i) {
+            positions[next[indexes[i]]++] = i;
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ranking;
+
+/**
+ * Result of the comparison of two documents.
+ * <p>
+ * A comparison stopped as soon as it passes or fails a maximum error rate
+ * gives a bounded result: the number of error is between {@link #getNbError()}
+ * and {@link #getNbErrorMax()}. Both are equal for an exact result.
+ * <p>
+ * @author Nils Ryter
+ */
+public final class RankResult {
+
+    //Number of error found in the comparative document, at least
+    private final long nbError;
+    //Maximum number of error of the comparative document
+    private final long nbErrorMax;
+    //Number of unit of the original document: word or charter
+    private final long nbWord;
+
+    /**
+     * Create a new exact RankResult.
+     * <p>
+     * @param nbError Number of error found in the comparative document
+     * @param nbWord Number of word, or charter, of the original document
+     */
+    public RankResult(long nbError, long nbWord) {
+        this(nbError, nbWord, nbError);
+    }
+
+    /**
+     * Create a new RankResult, bounded if the number of error is not known
+     * exactly.
+     * <p>
+     * @param nbError Minimum number of error of the comparative document
+     * @param nbWord Number of word, or charter, of the original document
+     * @param nbErrorMax Maximum number of error of the comparative document
+     */
+    public RankResult(long nbError, long nbWord, long nbErrorMax) {
+        this.nbError = nbError;
+        this.nbWord = nbWord;
+        this.nbErrorMax = nbErrorMax;
+    }
+
+    /**
+     * Return the maximum number of error of a comparison which passes a
+     * maximum error rate.
+     * <p>
+     * @param maxRate Maximum error rate in percent
+     * @param nbWord Number of word, or charter, of the original document
+     * @return Maximum number of error
+     */
+    public static long maxError(double maxRate, long nbWord) {
+        return (long) Math.min(Math.floor(maxRate * Math.max(nbWord, 1)
+                / 100), Long.MAX_VALUE);
+    }
+
+    /**
+     * Return the maximum error rate. An empty original is counted as one
+     * word.
+     * <p>
+     * @return Maximum error rate in percent, the error rate if the result is
+     * exact
+     */
+    public double getMaxRate() {
+        return (double) nbErrorMax / Math.max(nbWord, 1) * 100;
+    }
+
+    /**
+     * Return the maximum number of error of the comparative document.
+     * <p>
+     * @return Maximum number of error, the number of error if the result is
+     * exact
+     */
+    public long getNbErrorMax() {
+        return nbErrorMax;
+    }
+
+    /**
+     * Return the number of error found in the comparative document.
+     * <p>
+     * @return Number of error, the minimum if the result is bounded
+     */
+    public long getNbError() {
+        return nbError;
+    }
+
+    /**
+     * Return the number of word of the original document, or of charter for
+     * a character metric.
+     * <p>
+     * @return Number of word
+     */
+    public long getNbWord() {
+        return nbWord;
+    }
+
+    /**
+     * Return the error rate. An empty original is counted as one word.
+     * <p>
+     * @return Error rate in percent, the minimum if the result is bounded
+     */
+    public double getRate() {
+        return (double) nbError / Math.max(nbWord, 1) * 100;
+    }
+
+    /**
+     * Check if the number of error is known exactly.
+     * <p>
+     * @return True if the comparison wasn't stopped before its end
+     */
+    public boolean isExact() {
+        return nbError == nbErrorMax;
+    }
+
+    /**
+     * Check if the comparison passes a maximum error rate. A bounded result
+     * passes if its maximum number of error passes.
+     * <p>
+     * @param maxRate Maximum error rate in percent
+     * @return True if the error rate is lower or equal to maxRate
+     */
+    public boolean isPassed(double maxRate) {
+        return nbErrorMax <= maxError(maxRate, nbWord);
+    }
+
+    @Override
+    public String toString() {
+        if (isExact()) {
+            return nbError + "/" + nbWord + " (" + getRate() + "%)";
+        }
+        return nbError + ".." + nbErrorMax + "/" + nbWord + " (" + getRate()
+                + "%.." + getMaxRate() + "%)";
+    }
+}
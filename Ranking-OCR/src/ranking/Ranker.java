@@ -16,19 +16,150 @@
  */
 package ranking;
 
+import java.io.IOException;
+import java.io.Reader;
+
 /**
  * Common interface of the rankers.
  * <p>
+ * A ranker doesn't keep the state of a comparison: all the state is local to
+ * each call, so a single instance can be shared by all the threads. The
+ * results are returned as an immutable {@link RankResult}; the
+ * {@code compare} methods only return its rate.
+ * <p>
  * @author Nils Ryter
  */
 public interface Ranker {
 
     /**
-     * Compare the documents.
+     * Compare the documents and return the error rate.
      * <p>
      * @param original Original document
      * @param comparative Document to compare to original
      * @return Error rate in percent
      */
-    public double compare(String original, String comparative);
+    public default double compare(String original, String comparative) {
+        return rank(original, comparative).getRate();
+    }
+
+    /**
+     * Compare a prepared original document to a document and return the
+     * error rate.
+     * <p>
+     * @param original Original document returned by {@link #prepare(String)}
+     * @param comparative Document to compare to original
+     * @return Error rate in percent
+     */
+    public default double compare(PreparedDocument original,
+            String comparative) {
+        return rank(original, comparative).getRate();
+    }
+
+    /**
+     * Compare documents read from readers and return the error rate. The
+     * readers aren't closed.
+     * <p>
+     * @param original Reader of the original document
+     * @param comparative Reader of the document to compare to original
+     * @return Error rate in percent
+     * @throws IOException A document can not be read
+     */
+    public default double compare(Reader original, Reader comparative)
+            throws IOException {
+        return rank(original, comparative).getRate();
+    }
+
+    /**
+     * Prepare an original document to compare it to many documents. The
+     * prepared document can be shared by several threads and rankers of the
+     * same class.
+     * <p>
+     * @param original Original document
+     * @return Prepared document
+     */
+    public default PreparedDocument prepare(String original) {
+        return new PreparedDocument(original);
+    }
+
+    /**
+     * Compare the documents.
+     * <p>
+     * @param original Original document
+     * @param comparative Document to compare to original
+     * @return Result of the comparison
+     */
+    public RankResult rank(String original, String comparative);
+
+    /**
+     * Compare a prepared original document to a document.
+     * <p>
+     * @param original Original document returned by {@link #prepare(String)}
+     * @param comparative Document to compare to original
+     * @return Result of the comparison
+     */
+    public default RankResult rank(PreparedDocument original,
+            String comparative) {
+        return rank(original.getText(), comparative);
+    }
+
+    /**
+     * Compare a prepared original document to a document, only as far as
+     * needed to know if it passes a maximum error rate.
+     * <p>
+     * The comparison can stop as soon as the errors found fail the rate, or
+     * as soon as the remaining words can't make it fail. The result is then
+     * bounded, {@link RankResult#isPassed(double)} giving the verdict. By
+     * default, the documents are compared to the end.
+     * <p>
+     * @param original Original document returned by {@link #prepare(String)}
+     * @param comparative Document to compare to original
+     * @param maxRate Maximum error rate in percent
+     * @return Result of the comparison, bounded if stopped early
+     */
+    public default RankResult rank(PreparedDocument original,
+            String comparative, double maxRate) {
+        return rank(original, comparative);
+    }
+
+    /**
+     * Compare the documents only as far as needed to know if they pass a
+     * maximum error rate.
+     * <p>
+     * @param original Original document
+     * @param comparative Document to compare to original
+     * @param maxRate Maximum error rate in percent
+     * @return Result of the comparison, bounded if stopped early
+     * @see #rank(PreparedDocument, String, double)
+     */
+    public default RankResult rank(String original, String comparative,
+            double maxRate) {
+        return rank(prepare(original), comparative, maxRate);
+    }
+
+    /**
+     * Compare documents read from readers. The readers aren't closed.
+     * <p>
+     * By default, the whole documents are read then compared. A ranker can
+     * compare them while reading to use less memory.
+     * <p>
+     * @param original Reader of the original document
+     * @param comparative Reader of the document to compare to original
+     * @return Result of the comparison
+     * @throws IOException A document can not be read
+     */
+    public default RankResult rank(Reader original, Reader comparative)
+            throws IOException {
+        Reader[] readers = {original, comparative};
+        String[] texts = new String[readers.length];
+        char[] buffer = new char[8192];
+        for (int i = 0; i < readers.length; ++i) {
+            StringBuilder s = new StringBuilder();
+            for (int n = readers[i].read(buffer); n >= 0;
+                    n = readers[i].read(buffer)) {
+                s.append(buffer, 0, n);
+            }
+            texts[i] = s.toString();
+        }
+        return rank(texts[0], texts[1]);
+    }
 }
@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ranking;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Description of a ranker: its name, aliases and metric, and how to create
+ * it. The descriptor hands out a shared instance, so the callers need neither
+ * reflection nor allocation to compare documents. The ranker class is loaded
+ * when the factory loads it: a constructor reference such as
+ * {@code SimpleRanker::new} loads it with the descriptor, a factory creating
+ * the ranker in its body loads it at the first call.
+ * <p>
+ * @author Nils Ryter
+ */
+public final class RankerDescriptor {
+
+    /**
+     * Metric measured by a ranker.
+     */
+    public enum Metric {
+
+        /**
+         * Errors found by aligning the words of the documents.
+         */
+        WORD_ALIGNMENT,
+        /**
+         * Word error rate: word edit distance.
+         */
+        WORD_ERROR_RATE,
+        /**
+         * Character error rate: character edit distance.
+         */
+        CHARACTER_ERROR_RATE
+    }
+
+    //Other names of the ranker
+    private final List<String> aliases;
+    //Short description of the ranker
+    private final String description;
+    //Factory of the ranker
+    private final Supplier<? extends Ranker> factory;
+    //Metric measured by the ranker
+    private final Metric metric;
+    //Name of the ranker
+    private final String name;
+    //Instance shared by all the callers, created at the first use
+    private volatile Ranker ranker;
+    //Version of the results of the ranker
+    private final int version;
+
+    /**
+     * Create a new RankerDescriptor, at version 1.
+     * <p>
+     * @param name Name of the ranker
+     * @param metric Metric measured by the ranker
+     * @param description Short description of the ranker
+     * @param factory Factory creating a new ranker at each call
+     * @param aliases Other names of the ranker
+     */
+    public RankerDescriptor(String name, Metric metric, String description,
+            Supplier<? extends Ranker> factory, String... aliases) {
+        this(name, 1, metric, description, factory, aliases);
+    }
+
+    /**
+     * Create a new RankerDescriptor.
+     * <p>
+     * @param name Name of the ranker
+     * @param version Version of the results of the ranker, to change each
+     * time the ranker can give another result for the same documents
+     * @param metric Metric measured by the ranker
+     * @param description Short description of the ranker
+     * @param factory Factory creating a new ranker at each call
+     * @param aliases Other names of the ranker
+     */
+    public RankerDescriptor(String name, int version, Metric metric,
+            String description, Supplier<? extends Ranker> factory,
+            String... aliases) {
+        this.name = name;
+        this.version = version;
+        this.metric = metric;
+        this.description = description;
+        this.factory = factory;
+        this.aliases = Collections.unmodifiableList(Arrays.asList(
+                aliases.clone()));
+    }
+
+    /**
+     * Return the other names of the ranker.
+     * <p>
+     * @return Aliases
+     */
+    public List<String> getAliases() {
+        return aliases;
+    }
+
+    /**
+     * Return the short description of the ranker.
+     * <p>
+     * @return Description
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Return the instance of the ranker shared by all the callers, created at
+     * the first call. A ranker keeps no state between its comparisons, so
+     * the instance can be used by several threads.
+     * <p>
+     * @return Shared ranker
+     */
+    public Ranker getRanker() {
+        Ranker r = ranker;
+        if (r == null) {
+            synchronized (this) {
+                r = ranker;
+                if (r == null) {
+                    r = factory.get();
+                    ranker = r;
+                }
+            }
+        }
+        return r;
+    }
+
+    /**
+     * Return the metric measured by the ranker.
+     * <p>
+     * @return Metric
+     */
+    public Metric getMetric() {
+        return metric;
+    }
+
+    /**
+     * Return the name of the ranker.
+     * <p>
+     * @return Name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Return the version of the results of the ranker. Results saved with
+     * another version must be computed again.
+     * <p>
+     * @return Version
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Check if a name is the name or an alias of the ranker, ignoring the
+     * case.
+     * <p>
+     * @param s Name
+     * @return True if the ranker has this name
+     */
+    public boolean isNamed(String s) {
+        if (name.equalsIgnoreCase(s)) {
+            return true;
+        }
+        return aliases.stream().anyMatch((a) -> a.equalsIgnoreCase(s));
+    }
+
+    /**
+     * Create a new ranker, not shared.
+     * <p>
+     * @return Ranker
+     */
+    public Ranker newRanker() {
+        return factory.get();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
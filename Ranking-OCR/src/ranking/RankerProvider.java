@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ranking;
+
+import java.util.List;
+
+/**
+ * Service providing rankers to the {@link RankerRegistry}.
+ * <p>
+ * A library adds its rankers by implementing this interface and listing the
+ * implementation in {@code META-INF/services/ranking.RankerProvider}. The
+ * descriptors should create the rankers lazily.
+ * <p>
+ * @author Nils Ryter
+ */
+public interface RankerProvider {
+
+    /**
+     * Return the descriptors of the provided rankers.
+     * <p>
+     * @return Ranker descriptors
+     */
+    public List<RankerDescriptor> getRankers();
+}
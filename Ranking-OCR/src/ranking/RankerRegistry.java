@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ranking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+import ranking.RankerDescriptor.Metric;
+
+/**
+ * Registry of the available rankers.
+ * <p>
+ * The rankers of this package are registered directly, the rankers of other
+ * libraries are found once with a {@link ServiceLoader} of
+ * {@link RankerProvider}. The classpath isn't scanned. The factories of the
+ * rankers of this package create them by name, so listing them loads no
+ * ranker class: a class is loaded when its first ranker is created.
+ * <p>
+ * @author Nils Ryter
+ */
+public final class RankerRegistry {
+
+    //Rankers of this package
+    private static final List<RankerDescriptor> BUILT_IN = Arrays.asList(
+            new RankerDescriptor("SimpleRanker", Metric.WORD_ALIGNMENT,
+                    "Align the words with a bounded look-ahead, fast",
+                    () -> create("SimpleRanker"), "simple"),
+            new RankerDescriptor("WordErrorRanker", Metric.WORD_ERROR_RATE,
+                    "Word error rate, exact word edit distance",
+                    () -> create("WordErrorRanker"), "wer", "word"),
+            new RankerDescriptor("CharacterErrorRanker",
+                    Metric.CHARACTER_ERROR_RATE,
+                    "Character error rate, exact character edit distance",
+                    () -> create("CharacterErrorRanker"), "cer", "character"),
+            new RankerDescriptor("PatienceRanker", Metric.WORD_ALIGNMENT,
+                    "Align the unique words first and move the reordered "
+                    + "blocks, for text in the wrong order",
+                    () -> create("PatienceRanker"), "patience"));
+
+    /**
+     * Registry can't be instantiated.
+     */
+    private RankerRegistry() {
+    }
+
+    /**
+     * Create a ranker of this package. The factories don't refer to the
+     * constructors, which would load the ranker classes with the registry.
+     * <p>
+     * @param name Name of the ranker
+     * @return New ranker
+     */
+    private static Ranker create(String name) {
+        switch (name) {
+            case "SimpleRanker":
+                return new SimpleRanker();
+            case "WordErrorRanker":
+                return new WordErrorRanker();
+            case "CharacterErrorRanker":
+                return new CharacterErrorRanker();
+            case "PatienceRanker":
+                return new PatienceRanker();
+            default:
+                throw new IllegalArgumentException("Unknown ranker " + name);
+        }
+    }
+
+    /**
+     * Find a ranker by its name or one of its aliases, ignoring the case.
+     * <p>
+     * @param name Name of the ranker
+     * @return Descriptor of the ranker, or null if no ranker has this name
+     */
+    public static RankerDescriptor find(String name) {
+        for (RankerDescriptor d : getRankers()) {
+            if (d.isNamed(name)) {
+                return d;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Return the available rankers, the rankers of this package first.
+     * <p>
+     * @return Ranker descriptors
+     * @throws java.util.ServiceConfigurationError A provider can not be
+     * loaded
+     */
+    public static List<RankerDescriptor> getRankers() {
+        return Holder.RANKERS;
+    }
+
+    /**
+     * Holder of the rankers, loaded at the first use.
+     */
+    private static class Holder {
+
+        //Available rankers
+        private static final List<RankerDescriptor> RANKERS = load();
+
+        /**
+         * Load the rankers of the providers.
+         * <p>
+         * @return Ranker descriptors
+         */
+        private static List<RankerDescriptor> load() {
+            List<RankerDescriptor> l = new ArrayList<>(BUILT_IN);
+            for (RankerProvider p : ServiceLoader.load(RankerProvider.class)) {
+                l.addAll(p.getRankers());
+            }
+            return Collections.unmodifiableList(l);
+        }
+    }
+}
@@ -0,0 +1,494 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ranking;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Formatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Statistics of the ranking: time spent in each phase, throughput and sync
+ * branches of {@link SimpleRanker}.
+ * <p>
+ * The statistics are collected once per document, never per word, with
+ * {@link LongAdder} counters, so they can stay enabled on a multithreaded run.
+ * The durations are kept in log-linear histograms of 4 buckets per power of
+ * two, so the percentiles are known within 25%.
+ * <p>
+ * A single instance collects the statistics of the whole program. It can be
+ * registered as a JMX MXBean named {@value #OBJECT_NAME}.
+ * <p>
+ * @author Nils Ryter
+ */
+public final class RankingStats implements RankingStatsMXBean {
+
+    /**
+     * Phase of the ranking.
+     */
+    public enum Phase {
+
+        /**
+         * Read the text of a document file.
+         */
+        READ,
+        /**
+         * Normalize and split a document in words.
+         */
+        TOKENIZE,
+        /**
+         * Align the words of the documents and count the errors.
+         */
+        ALIGN,
+        /**
+         * Read, split and align documents streamed from their files.
+         */
+        STREAM,
+        /**
+         * Write a result to the output file.
+         */
+        WRITE
+    }
+
+    /**
+     * Branch taken by a sync of {@link SimpleRanker}.
+     */
+    public enum Sync {
+
+        /**
+         * Original words are skipped to find the comparative word.
+         */
+        ORIGINAL,
+        /**
+         * Comparative words are skipped to find the original word.
+         */
+        COMPARATIVE,
+        /**
+         * No sync found, both words are counted as one error.
+         */
+        BOTH
+    }
+
+    /**
+     * Statistics of a phase, as read by JMX.
+     */
+    public static class PhaseStats {
+
+        //Number of measure
+        private final long count;
+        //Maximum duration in milliseconds
+        private final double maxMillis;
+        //Median duration in milliseconds
+        private final double p50Millis;
+        //95th percentile duration in milliseconds
+        private final double p95Millis;
+        //99th percentile duration in milliseconds
+        private final double p99Millis;
+        //Name of the phase
+        private final String phase;
+        //Total duration in milliseconds
+        private final double totalMillis;
+
+        /**
+         * Create a new PhaseStats from a histogram.
+         * <p>
+         * @param phase Phase
+         * @param h Histogram of the phase
+         */
+        private PhaseStats(Phase phase, Histogram h) {
+            this.phase = phase.name();
+            long[] buckets = h.snapshot();
+            long n = 0;
+            for (long b : buckets) {
+                n += b;
+            }
+            count = n;
+            totalMillis = h.total.sum() / 1e6;
+            long max = h.max.get();
+            maxMillis = max / 1e6;
+            p50Millis = Math.min(Histogram.percentile(buckets, n, 0.50), max)
+                    / 1e6;
+            p95Millis = Math.min(Histogram.percentile(buckets, n, 0.95), max)
+                    / 1e6;
+            p99Millis = Math.min(Histogram.percentile(buckets, n, 0.99), max)
+                    / 1e6;
+        }
+
+        /**
+         * Return the number of measure.
+         * <p>
+         * @return Count
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Return the maximum duration.
+         * <p>
+         * @return Duration in milliseconds
+         */
+        public double getMaxMillis() {
+            return maxMillis;
+        }
+
+        /**
+         * Return the median duration.
+         * <p>
+         * @return Duration in milliseconds
+         */
+        public double getP50Millis() {
+            return p50Millis;
+        }
+
+        /**
+         * Return the 95th percentile of the durations.
+         * <p>
+         * @return Duration in milliseconds
+         */
+        public double getP95Millis() {
+            return p95Millis;
+        }
+
+        /**
+         * Return the 99th percentile of the durations.
+         * <p>
+         * @return Duration in milliseconds
+         */
+        public double getP99Millis() {
+            return p99Millis;
+        }
+
+        /**
+         * Return the name of the phase.
+         * <p>
+         * @return Phase name
+         */
+        public String getPhase() {
+            return phase;
+        }
+
+        /**
+         * Return the total duration.
+         * <p>
+         * @return Duration in milliseconds
+         */
+        public double getTotalMillis() {
+            return totalMillis;
+        }
+    }
+
+    /**
+     * Name of the MXBean.
+     */
+    public static final String OBJECT_NAME = "ranking:type=RankingStats";
+    //Statistics of the program
+    private static final RankingStats INSTANCE = new RankingStats();
+    //Histogram of each phase
+    private final Histogram[] histograms
+            = new Histogram[Phase.values().length];
+    //Number of document pair ranked
+    private final LongAdder nbDocument = new LongAdder();
+    //Number of original word ranked
+    private final LongAdder nbWord = new LongAdder();
+    //Time of the start or of the last reset, in nanoseconds
+    private volatile long start = System.nanoTime();
+    //Number of sync by branch
+    private final LongAdder[] syncs = new LongAdder[Sync.values().length];
+
+    /**
+     * Create a new RankingStats.
+     */
+    private RankingStats() {
+        for (int i = 0; i < histograms.length; ++i) {
+            histograms[i] = new Histogram();
+        }
+        for (int i = 0; i < syncs.length; ++i) {
+            syncs[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Return the statistics of the program.
+     * <p>
+     * @return Statistics
+     */
+    public static RankingStats getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Count a ranked document pair.
+     * <p>
+     * @param nbWord Number of word of the original document
+     */
+    public void addDocument(long nbWord) {
+        nbDocument.increment();
+        this.nbWord.add(nbWord);
+    }
+
+    /**
+     * Count the syncs of a comparison.
+     * <p>
+     * @param original Number of sync skipping original words
+     * @param comparative Number of sync skipping comparative words
+     * @param both Number of sync counting both words as an error
+     */
+    public void addSyncs(long original, long comparative, long both) {
+        syncs[Sync.ORIGINAL.ordinal()].add(original);
+        syncs[Sync.COMPARATIVE.ordinal()].add(comparative);
+        syncs[Sync.BOTH.ordinal()].add(both);
+    }
+
+    @Override
+    public double getDocumentsPerSecond() {
+        return perSecond(nbDocument.sum());
+    }
+
+    @Override
+    public long getElapsedMillis() {
+        return (System.nanoTime() - start) / 1000000;
+    }
+
+    @Override
+    public long getNbDocument() {
+        return nbDocument.sum();
+    }
+
+    @Override
+    public long getNbWord() {
+        return nbWord.sum();
+    }
+
+    @Override
+    public List<PhaseStats> getPhases() {
+        List<PhaseStats> l = new ArrayList<>();
+        for (Phase p : Phase.values()) {
+            l.add(new PhaseStats(p, histograms[p.ordinal()]));
+        }
+        return Collections.unmodifiableList(l);
+    }
+
+    /**
+     * Return a summary of the statistics, as a table.
+     * <p>
+     * @return Summary
+     */
+    public String getSummary() {
+        Formatter f = new Formatter(Locale.ROOT);
+        f.format("Documents: %d (%.1f/s), words: %d (%.0f/s), "
+                + "elapsed: %.1f s%n", getNbDocument(),
+                getDocumentsPerSecond(), getNbWord(), getWordsPerSecond(),
+                getElapsedMillis() / 1000.0);
+        f.format("%-10s %8s %10s %9s %9s %9s %9s%n", "Phase (ms)", "count",
+                "total", "p50", "p95", "p99", "max");
+        for (PhaseStats p : getPhases()) {
+            if (p.getCount() > 0) {
+                f.format("%-10s %8d %10.1f %9.3f %9.3f %9.3f %9.3f%n",
+                        p.getPhase(), p.getCount(), p.getTotalMillis(),
+                        p.getP50Millis(), p.getP95Millis(), p.getP99Millis(),
+                        p.getMaxMillis());
+            }
+        }
+        Map<String, Long> s = getSyncCounts();
+        f.format("Syncs: original %d, comparative %d, both %d%n",
+                s.get(Sync.ORIGINAL.name()), s.get(Sync.COMPARATIVE.name()),
+                s.get(Sync.BOTH.name()));
+        return f.toString();
+    }
+
+    @Override
+    public Map<String, Long> getSyncCounts() {
+        Map<String, Long> m = new LinkedHashMap<>();
+        for (Sync s : Sync.values()) {
+            m.put(s.name(), syncs[s.ordinal()].sum());
+        }
+        return Collections.unmodifiableMap(m);
+    }
+
+    @Override
+    public double getWordsPerSecond() {
+        return perSecond(nbWord.sum());
+    }
+
+    /**
+     * Record the duration of a phase.
+     * <p>
+     * @param phase Phase
+     * @param nanos Duration in nanoseconds, from {@link System#nanoTime()}
+     */
+    public void record(Phase phase, long nanos) {
+        histograms[phase.ordinal()].record(nanos);
+    }
+
+    /**
+     * Register the statistics on the platform MBean server. Does nothing if
+     * they are already registered.
+     * <p>
+     * @throws JMException The MXBean can not be registered
+     */
+    public void register() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(OBJECT_NAME);
+        if (!server.isRegistered(name)) {
+            server.registerMBean(this, name);
+        }
+    }
+
+    @Override
+    public void reset() {
+        for (Histogram h : histograms) {
+            h.reset();
+        }
+        for (LongAdder s : syncs) {
+            s.reset();
+        }
+        nbDocument.reset();
+        nbWord.reset();
+        start = System.nanoTime();
+    }
+
+    /**
+     * Return a rate per second since the start.
+     * <p>
+     * @param n Number of event
+     * @return Events per second
+     */
+    private double perSecond(long n) {
+        long elapsed = System.nanoTime() - start;
+        return elapsed > 0 ? n * 1e9 / elapsed : 0;
+    }
+
+    /**
+     * Log-linear histogram of durations.
+     */
+    private static class Histogram {
+
+        //Number of bucket for each power of two
+        private static final int SUB_BUCKETS = 4;
+        //Number of measure in each bucket
+        private final LongAdder[] buckets = new LongAdder[64 * SUB_BUCKETS];
+        //Maximum duration
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+        //Total duration
+        private final LongAdder total = new LongAdder();
+
+        /**
+         * Create a new Histogram.
+         */
+        Histogram() {
+            for (int i = 0; i < buckets.length; ++i) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        /**
+         * Return the index of the bucket of a value.
+         * <p>
+         * @param v Value, positive
+         * @return Bucket index
+         */
+        static int bucket(long v) {
+            if (v < SUB_BUCKETS) {
+                return (int) v;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(v);
+            int sub = (int) (v >>> (exponent - 2)) & (SUB_BUCKETS - 1);
+            return (exponent - 1) * SUB_BUCKETS + sub;
+        }
+
+        /**
+         * Return the upper bound of the values of a bucket.
+         * <p>
+         * @param b Bucket index
+         * @return Highest value of the bucket
+         */
+        static long upperBound(int b) {
+            if (b < SUB_BUCKETS) {
+                return b;
+            }
+            int exponent = b / SUB_BUCKETS + 1;
+            long sub = b % SUB_BUCKETS;
+            return ((SUB_BUCKETS + sub + 1) << (exponent - 2)) - 1;
+        }
+
+        /**
+         * Return a percentile of the values.
+         * <p>
+         * @param buckets Number of values in each bucket
+         * @param count Number of values
+         * @param p Percentile, from 0 to 1
+         * @return Upper bound of the bucket holding the percentile
+         */
+        static long percentile(long[] buckets, long count, double p) {
+            long rank = (long) Math.ceil(count * p);
+            long n = 0;
+            for (int b = 0; b < buckets.length; ++b) {
+                n += buckets[b];
+                if (n >= rank && n > 0) {
+                    return upperBound(b);
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Record a value.
+         * <p>
+         * @param v Value
+         */
+        void record(long v) {
+            v = Math.max(v, 0);
+            buckets[bucket(v)].increment();
+            total.add(v);
+            max.accumulate(v);
+        }
+
+        /**
+         * Reset the histogram.
+         */
+        void reset() {
+            for (LongAdder b : buckets) {
+                b.reset();
+            }
+            total.reset();
+            max.reset();
+        }
+
+        /**
+         * Return the number of values of each bucket.
+         * <p>
+         * @return Counts
+         */
+        long[] snapshot() {
+            long[] s = new long[buckets.length];
+            for (int i = 0; i < s.length; ++i) {
+                s[i] = buckets[i].sum();
+            }
+            return s;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ranking;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Management interface of the {@link RankingStats}, to follow a long run with
+ * a JMX console.
+ * <p>
+ * @author Nils Ryter
+ */
+public interface RankingStatsMXBean {
+
+    /**
+     * Return the number of document pair ranked per second since the start.
+     * <p>
+     * @return Documents per second
+     */
+    public double getDocumentsPerSecond();
+
+    /**
+     * Return the time since the start or the last reset.
+     * <p>
+     * @return Elapsed time in milliseconds
+     */
+    public long getElapsedMillis();
+
+    /**
+     * Return the number of document pair ranked.
+     * <p>
+     * @return Number of document pair
+     */
+    public long getNbDocument();
+
+    /**
+     * Return the number of original word ranked.
+     * <p>
+     * @return Number of word
+     */
+    public long getNbWord();
+
+    /**
+     * Return the statistics of each phase of the ranking.
+     * <p>
+     * @return Phase statistics
+     */
+    public List<RankingStats.PhaseStats> getPhases();
+
+    /**
+     * Return the number of sync of {@link SimpleRanker} by branch: original
+     * words skipped, comparative words skipped, or both words counted as an
+     * error.
+     * <p>
+     * @return Number of sync by branch name
+     */
+    public Map<String, Long> getSyncCounts();
+
+    /**
+     * Return the number of original word ranked per second since the start.
+     * <p>
+     * @return Words per second
+     */
+    public double getWordsPerSecond();
+
+    /**
+     * Reset all the statistics.
+     */
+    public void reset();
+}
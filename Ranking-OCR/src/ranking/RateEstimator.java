@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ranking;
+
+import java.util.Locale;
+
+/**
+ * Estimate the error rate of a corpus from a random sample of its pairs of
+ * documents.
+ * <p>
+ * The rate of the corpus is the total number of error divided by the total
+ * number of word. It is estimated by the same ratio on the sample, and its
+ * confidence interval by the variance of the ratio estimator:
+ * {@code var(R) = (1 - n / N) / (n * w^2) * sum((e - R * w)^2) / (n - 1)},
+ * with n pairs sampled out of N, w their mean number of word and e the errors
+ * of each pair. The interval is valid for samples of some tens of pairs or
+ * more.
+ * <p>
+ * Results can be added by several threads.
+ * <p>
+ * @author Nils Ryter
+ */
+public class RateEstimator {
+
+    //Number of pair sampled
+    private long nbSample = 0;
+    //Number of pair of the corpus
+    private final long populationSize;
+    //Sum of the errors of the pairs
+    private double sumError = 0;
+    //Sum of the squares of the errors
+    private double sumError2 = 0;
+    //Sum of the errors times the words
+    private double sumErrorWord = 0;
+    //Sum of the words of the pairs
+    private double sumWord = 0;
+    //Sum of the squares of the words
+    private double sumWord2 = 0;
+
+    /**
+     * Create a new RateEstimator.
+     * <p>
+     * @param populationSize Number of pair of the corpus, the sample being
+     * drawn without replacement
+     */
+    public RateEstimator(long populationSize) {
+        this.populationSize = populationSize;
+    }
+
+    /**
+     * Add the result of a sampled pair.
+     * <p>
+     * @param result Result of the comparison
+     */
+    public synchronized void add(RankResult result) {
+        double e = result.getNbError();
+        double w = Math.max(result.getNbWord(), 1);
+        ++nbSample;
+        sumError += e;
+        sumError2 += e * e;
+        sumErrorWord += e * w;
+        sumWord += w;
+        sumWord2 += w * w;
+    }
+
+    /**
+     * Return the half width of the confidence interval of the error rate.
+     * <p>
+     * @param z Quantile of the normal distribution, 1.96 for a 95% interval
+     * @return Half width in percent, NaN with less than two pairs
+     */
+    public synchronized double getMargin(double z) {
+        if (nbSample < 2) {
+            return Double.NaN;
+        }
+        double r = sumError / sumWord;
+        double mean = sumWord / nbSample;
+        double residuals = sumError2 - 2 * r * sumErrorWord
+                + r * r * sumWord2;
+        double fpc = Math.max(0, 1 - (double) nbSample / populationSize);
+        double variance = fpc * Math.max(residuals, 0) / (nbSample - 1)
+                / (nbSample * mean * mean);
+        return z * Math.sqrt(variance) * 100;
+    }
+
+    /**
+     * Return the number of pair sampled.
+     * <p>
+     * @return Number of pair
+     */
+    public synchronized long getNbSample() {
+        return nbSample;
+    }
+
+    /**
+     * Return the number of pair of the corpus.
+     * <p>
+     * @return Number of pair
+     */
+    public long getPopulationSize() {
+        return populationSize;
+    }
+
+    /**
+     * Return the estimated error rate of the corpus.
+     * <p>
+     * @return Error rate in percent, NaN if no pair is sampled
+     */
+    public synchronized double getRate() {
+        return nbSample == 0 ? Double.NaN : sumError / sumWord * 100;
+    }
+
+    @Override
+    public String toString() {
+        double rate = getRate();
+        double margin = getMargin(1.96);
+        return String.format(Locale.ROOT,
+                "%.3f%% +/- %.3f%% (95%% CI %.3f%% - %.3f%%), %d of %d pairs",
+                rate, margin, rate - margin, rate + margin, getNbSample(),
+                populationSize);
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ranking;
+
+/**
+ * Ranker comparing segments of the documents given as word identifiers.
+ * <p>
+ * The segments of a pair of documents can be compared independently, then
+ * their errors and words summed up, as done by {@link AnchoredRanker}.
+ * <p>
+ * @author Nils Ryter
+ */
+public interface SegmentRanker extends Ranker {
+
+    /**
+     * Compare a segment of a prepared original document to a segment of a
+     * document.
+     * <p>
+     * @param original Original document returned by {@link #prepare(String)}
+     * @param comparative Identifiers of the words of the document to compare,
+     * returned by {@link PreparedDocument#lookup(CharSequence)}
+     * @param originalFrom First original word to compare
+     * @param originalTo End of the original words to compare, excluded
+     * @param comparativeFrom First comparative word to compare
+     * @param comparativeTo End of the comparative words to compare, excluded
+     * @return Result of the comparison of the segments
+     */
+    public RankResult rank(PreparedDocument original, int[] comparative,
+            int originalFrom, int originalTo, int comparativeFrom,
+            int comparativeTo);
+}
@@ -16,37 +16,41 @@
  */
 package ranking;
 
-import java.text.Normalizer;
-import java.text.Normalizer.Form;
-import java.util.Arrays;
-import java.util.LinkedList;
+import events.AlignEvent;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 
 /**
  * Compare and rank a text document to a original document.
  * <p>
  * The comparison and ranking is done as follows: <br>
  * <ol>
- * <li>replace all charters which aren't letter and number by space, replace all
- * accented charters by un-accented charters. </li>
- * <li>Split the documents in words (based on the space) </li>
+ * <li>Split the documents in words with a {@link Tokenizer}: all charters
+ * which aren't letter and number separate the words, all accented charters are
+ * replaced by un-accented charters. </li>
  * <li>Compare documents words pairwise. If the words don't match, try to sync
  * de two documents. </li>
  * </ol>
  * <p>
+ * The documents are kept as word arrays walked by two cursors. A sync only
+ * looks {@code CHECK_RANGE} words ahead of each cursor, so the comparison runs
+ * in linear time whatever the size of the documents. The documents can also be
+ * read from readers through a window of {@code CHECK_RANGE} words, so the
+ * memory used doesn't depend on the size of the documents.
+ * <p>
+ * The words are compared by their identifier in the {@link WordDictionary} of
+ * the {@link PreparedDocument} of the original.
+ * <p>
+ * The cursors and the error count are local to each comparison, so an
+ * instance can be shared by several threads.
+ * <p>
  * @author Nils Ryter
  */
-public class SimpleRanker implements Ranker {
+public class SimpleRanker implements SegmentRanker {
 
     //Number of word to check when comparing begin of the two documents
-    private final int CHECK_RANGE = 6;
-    //Document to compare
-    private final LinkedList<String> comparative = new LinkedList();
-    //Number of mistakes in compare document
-    private int nbError = 0;
-    //Number of word in original document
-    private int nbWord = 0;
-    //Original document
-    private final LinkedList<String> original = new LinkedList();
+    private static final int CHECK_RANGE = 6;
 
     /**
      * Create a new SimpleRanker.
@@ -55,123 +59,361 @@ public class SimpleRanker implements Ranker {
     }
 
     @Override
-    public double compare(String original, String comparative) {
-        init(original, comparative);
-        compare();
-        return (double) nbError / nbWord * 100;
+    public RankResult rank(String original, String comparative) {
+        return rank(prepare(original), comparative);
+    }
+
+    @Override
+    public RankResult rank(PreparedDocument original, String comparative) {
+        return rank(original.ids, original.lookup(comparative));
     }
 
     /**
-     * Return the number of error encountered in the comparison.
+     * {@inheritDoc}
      * <p>
-     * @return Number of error
+     * The alignment stops when the errors found exceed the maximum, or when
+     * the errors found plus the remaining words of both documents don't
+     * exceed it: each remaining word adds one error at most.
      */
-    public int getNbError() {
-        return nbError;
+    @Override
+    public RankResult rank(PreparedDocument original, String comparative,
+            double maxRate) {
+        return rank(original.ids, original.lookup(comparative),
+                RankResult.maxError(maxRate, original.getNbWord()));
     }
 
     /**
-     * Compare the original document to the comparative document.
+     * Compare the documents read from readers, with a constant memory. Gives
+     * the same result than the comparison of the whole texts.
+     * <p>
+     * @param original Reader of the original document
+     * @param comparative Reader of the document to compare to original
+     * @return Result of the comparison
+     * @throws IOException A document can not be read
      */
-    private void compare() {
-        //Compare original word to comparative word pairwise
-        while (original.size() > 0 && comparative.size() > 0) {
-            if (original.getFirst().equals(comparative.getFirst())) {
-                //Same words, so remove them
-                comparative.removeFirst();
-                original.removeFirst();
-            } else {
-                //Try to sync the documents
-                syncComparativeAndOriginal(CHECK_RANGE);
+    @Override
+    public RankResult rank(Reader original, Reader comparative)
+            throws IOException {
+        AlignEvent event = new AlignEvent();
+        event.begin();
+        try {
+            WordWindow o = new WordWindow(original, CHECK_RANGE + 1);
+            WordWindow c = new WordWindow(comparative, CHECK_RANGE + 1);
+            long nbError = 0;
+            long[] syncs = new long[RankingStats.Sync.values().length];
+            //Compare original word to comparative word pairwise
+            while (!o.isEmpty() && !c.isEmpty()) {
+                if (o.matches(0, c, 0)) {
+                    //Same words, so skip them
+                    o.skip(1);
+                    c.skip(1);
+                } else {
+                    //Try to sync the documents
+                    int posCinO = o.indexOf(c, 0);
+                    int posOinC = c.indexOf(o, 0);
+                    if (isBetterSync(posCinO, posOinC)) {
+                        o.skip(posCinO);
+                        nbError += posCinO;
+                        ++syncs[RankingStats.Sync.ORIGINAL.ordinal()];
+                    } else if (isBetterSync(posOinC, posCinO)) {
+                        c.skip(posOinC);
+                        nbError += posOinC;
+                        ++syncs[RankingStats.Sync.COMPARATIVE.ordinal()];
+                    } else {
+                        o.skip(1);
+                        c.skip(1);
+                        ++nbError;
+                        ++syncs[RankingStats.Sync.BOTH.ordinal()];
+                    }
+                }
             }
+            //Count remaining words as error
+            nbError += o.skipAll();
+            nbError += c.skipAll();
+            RankingStats.getInstance().addSyncs(syncs[0], syncs[1], syncs[2]);
+            event.end();
+            if (event.shouldCommit()) {
+                event.ranker = getClass().getSimpleName();
+                event.originalWords = o.getNbSkipped();
+                event.comparativeWords = c.getNbSkipped();
+                event.errors = nbError;
+                event.syncOriginal = syncs[0];
+                event.syncComparative = syncs[1];
+                event.syncBoth = syncs[2];
+                event.commitDocuments();
+            }
+            return new RankResult(nbError, o.getNbSkipped());
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
         }
-        //Count remaining words as error
-        while (original.size() > 0) {
-            original.removeFirst();
-            ++nbError;
-        }
-        //Count remaining words as error
-        while (comparative.size() > 0) {
-            comparative.removeFirst();
-            ++nbError;
-        }
     }
 
     /**
-     * Initialize the ranker with documents.
+     * Compare the documents given as word identifiers.
+     * <p>
+     * @param original Identifiers of the original document words
+     * @param comparative Identifiers of the words of the document to compare,
+     * {@link WordDictionary#UNKNOWN} for the words missing from the original
+     * @return Result of the comparison
+     */
+    public RankResult rank(int[] original, int[] comparative) {
+        return rank(original, comparative, -1);
+    }
+
+    /**
+     * Compare the documents given as word identifiers, only as far as needed
+     * to know if the number of error exceeds a maximum.
+     * <p>
+     * @param original Identifiers of the original document words
+     * @param comparative Identifiers of the words of the document to compare,
+     * {@link WordDictionary#UNKNOWN} for the words missing from the original
+     * @param maxError Maximum number of error of a passed comparison, or -1
+     * to compare the whole documents
+     * @return Result of the comparison, bounded if stopped early
+     */
+    public RankResult rank(int[] original, int[] comparative, long maxError) {
+        AlignEvent event = new AlignEvent();
+        event.begin();
+        long t = System.nanoTime();
+        Alignment a = new Alignment(original, comparative, 0, original.length,
+                0, comparative.length);
+        a.align(maxError);
+        record(event, t, a);
+        return new RankResult(a.nbError, original.length, a.getNbErrorMax());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The syncs still look ahead past the end of the segments, so the errors
+     * of the segments sum up to the errors of the whole documents when their
+     * cursors reach the ends of the segments together.
+     */
+    @Override
+    public RankResult rank(PreparedDocument original, int[] comparative,
+            int originalFrom, int originalTo, int comparativeFrom,
+            int comparativeTo) {
+        AlignEvent event = new AlignEvent();
+        event.begin();
+        long t = System.nanoTime();
+        Alignment a = new Alignment(original.ids, comparative, originalFrom,
+                originalTo, comparativeFrom, comparativeTo);
+        a.align(-1);
+        record(event, t, a);
+        return new RankResult(a.nbError, originalTo - originalFrom);
+    }
+
+    /**
+     * Check if a sync found at a position is better than a sync found in the
+     * other document.
      * <p>
-     * @param original Original document
-     * @param comparative Document to compare to original
+     * @param pos Position of the sync, -1 if not found
+     * @param other Position of the sync in the other document, -1 if not found
+     * @return True if the sync is found and is the nearest
      */
-    private void init(String original, String comparative) {
-        //Clear the context
-        this.comparative.clear();
-        this.original.clear();
-        nbError = 0;
-        //Clear the string
-        String clearTxt1 = original.replaceAll("[^0-9a-zA-Z]+", " ");
-        String clearTxt2 = comparative.replaceAll("[^0-9a-zA-Z]+", " ");
-        clearTxt1 = removeAccents(clearTxt1);
-        clearTxt2 = removeAccents(clearTxt2);
-        //Split the string by space
-        this.original.addAll(Arrays.asList(clearTxt1.split("[ ]+")));
-        this.comparative.addAll(Arrays.asList(clearTxt2.split("[ ]+")));
-        nbWord = this.original.size();
+    private static boolean isBetterSync(int pos, int other) {
+        return pos >= 0 && (other >= 0 && pos < other || other < 0);
     }
 
     /**
-     * Replace all accented charters by their un-accented charter.
+     * Search a word in the next words of a document.
      * <p>
-     * @param s Text to convert
-     * @return Text without accent
+     * @param words Document words
+     * @param from Position of the current word of the document
+     * @param range Maximum distance from the current word to look at
+     * @param word Word to find
+     * @return Distance between the current word and the word found, or -1 if
+     * the word doesn't appear in the range
      */
-    private String removeAccents(String s) {
-        if (s == null) {
-            return "";
-        } else {
-            return Normalizer.normalize(s, Form.NFD).replaceAll(
-                    "\\p{InCombiningDiacriticalMarks}+", "");
+    private static int indexOf(int[] words, int from, int range, int word) {
+        int to = Math.min(words.length, from + range + 1);
+        for (int i = from; i < to; ++i) {
+            if (words[i] == word) {
+                return i - from;
+            }
         }
+        return -1;
     }
 
     /**
-     * Sync comparative document with original.
+     * Record the statistics and the event of an alignment.
      * <p>
-     * @param syncRange Number of word to check when comparing begin of the two
-     * document
+     * @param event Event of the alignment, begun before
+     * @param t Start time of the alignment, in nanoseconds
+     * @param a Alignment done
      */
-    private void syncComparativeAndOriginal(int syncRange) {
-        /*
-         * Search in the comparative document if the current original value
-         * appears, meaning the current value from comparative document is a
-         * word which doesn't exist in the original document.
+    private void record(AlignEvent event, long t, Alignment a) {
+        RankingStats stats = RankingStats.getInstance();
+        stats.record(RankingStats.Phase.ALIGN, System.nanoTime() - t);
+        stats.addSyncs(a.nbSyncOriginal, a.nbSyncComparative, a.nbSyncBoth);
+        event.end();
+        if (event.shouldCommit()) {
+            event.ranker = getClass().getSimpleName();
+            event.originalWords = a.endOriginal - a.startOriginal;
+            event.comparativeWords = a.endComparative - a.startComparative;
+            event.errors = a.nbError;
+            event.syncOriginal = a.nbSyncOriginal;
+            event.syncComparative = a.nbSyncComparative;
+            event.syncBoth = a.nbSyncBoth;
+            event.commitDocuments();
+        }
+    }
+
+    /**
+     * State of the comparison of two documents given as word identifiers.
+     */
+    private static class Alignment {
+
+        //Document to compare
+        private final int[] comparative;
+        //End of the compared words of the comparative document, excluded
+        private final int endComparative;
+        //End of the compared words of the original document, excluded
+        private final int endOriginal;
+        //Number of mistakes in compare document
+        private long nbError = 0;
+        //Number of sync counting both words as an error
+        private long nbSyncBoth = 0;
+        //Number of sync skipping comparative words
+        private long nbSyncComparative = 0;
+        //Number of sync skipping original words
+        private long nbSyncOriginal = 0;
+        //Original document
+        private final int[] original;
+        //Cursor on the current word of the comparative document
+        private int posComparative;
+        //Cursor on the current word of the original document
+        private int posOriginal;
+        //Start of the compared words of the comparative document
+        private final int startComparative;
+        //Start of the compared words of the original document
+        private final int startOriginal;
+
+        /**
+         * Create a new Alignment of segments of the documents.
+         * <p>
+         * @param original Identifiers of the original document words
+         * @param comparative Identifiers of the comparative document words
+         * @param originalFrom First original word to compare
+         * @param originalTo End of the original words to compare, excluded
+         * @param comparativeFrom First comparative word to compare
+         * @param comparativeTo End of the comparative words to compare,
+         * excluded
          */
-        //First, find the current word in other document
-        int posCinO = original.indexOf(comparative.getFirst());
-        int posOinC = comparative.indexOf(original.getFirst());
+        Alignment(int[] original, int[] comparative, int originalFrom,
+                int originalTo, int comparativeFrom, int comparativeTo) {
+            this.original = original;
+            this.comparative = comparative;
+            startOriginal = originalFrom;
+            endOriginal = originalTo;
+            startComparative = comparativeFrom;
+            endComparative = comparativeTo;
+            posOriginal = originalFrom;
+            posComparative = comparativeFrom;
+        }
 
-        /*
-         * Second, check if the less desctructive sync is : -aligned original to
-         * comparative -aligned comparative to original -remove the word in both
+        /**
+         * Compare the original document to the comparative document.
+         * <p>
+         * @param maxError Maximum number of error of a passed comparison, the
+         * comparison stops as soon as it is known to pass or fail, or -1 to
+         * compare the whole documents
          */
-        if (posCinO <= syncRange && posCinO >= 0
-                && (posOinC >= 0 && posCinO < posOinC || posOinC < 0)) {
-            //Sync between the both document
-            for (int i = posCinO; i > 0; --i) {
-                original.removeFirst();
-                ++nbError;
+        void align(long maxError) {
+            if (isDecided(maxError)) {
+                return;
+            }
+            //Compare original word to comparative word pairwise
+            while (posOriginal < endOriginal
+                    && posComparative < endComparative) {
+                if (original[posOriginal] == comparative[posComparative]) {
+                    //Same words, so skip them
+                    ++posComparative;
+                    ++posOriginal;
+                } else {
+                    //Try to sync the documents
+                    syncComparativeAndOriginal(CHECK_RANGE);
+                    if (isDecided(maxError)) {
+                        return;
+                    }
+                }
             }
+            //Count remaining words as error
+            nbError += endOriginal - posOriginal;
+            nbError += endComparative - posComparative;
+            posOriginal = endOriginal;
+            posComparative = endComparative;
+        }
+
+        /**
+         * Return the maximum number of error: each remaining word adds one
+         * error at most.
+         * <p>
+         * @return Number of error if the documents were compared to the end,
+         * or its maximum
+         */
+        long getNbErrorMax() {
+            return nbError + (endOriginal - posOriginal)
+                    + (endComparative - posComparative);
+        }
 
-        } else if (posOinC <= syncRange && posOinC >= 0
-                && (posCinO >= 0 && posOinC < posCinO || posCinO < 0)) {
-            for (int i = posOinC; i > 0; --i) {
-                comparative.removeFirst();
+        /**
+         * Check if the comparison is known to pass or fail.
+         * <p>
+         * @param maxError Maximum number of error of a passed comparison, or
+         * -1 to compare the whole documents
+         * @return True if the comparison can stop
+         */
+        private boolean isDecided(long maxError) {
+            return maxError >= 0
+                    && (nbError > maxError || getNbErrorMax() <= maxError);
+        }
+
+        /**
+         * Sync comparative document with original.
+         * <p>
+         * A word found further than the sync range can not be used to sync
+         * the documents, so the search stops at the sync range. It gives the
+         * same result than a search in the whole documents. A sync never
+         * skips words past the end of the segments.
+         * <p>
+         * @param syncRange Number of word to check when comparing begin of
+         * the two document
+         */
+        private void syncComparativeAndOriginal(int syncRange) {
+            /*
+             * Search in the comparative document if the current original value
+             * appears, meaning the current value from comparative document is
+             * a word which doesn't exist in the original document.
+             */
+            //First, find the current word in other document
+            int posCinO = indexOf(original, posOriginal, syncRange,
+                    comparative[posComparative]);
+            int posOinC = indexOf(comparative, posComparative, syncRange,
+                    original[posOriginal]);
+
+            /*
+             * Second, check if the less desctructive sync is : -aligned
+             * original to comparative -aligned comparative to original -remove
+             * the word in both
+             */
+            if (isBetterSync(posCinO, posOinC)) {
+                //Sync between the both document
+                int skip = Math.min(posCinO, endOriginal - posOriginal);
+                posOriginal += skip;
+                nbError += skip;
+                ++nbSyncOriginal;
+            } else if (isBetterSync(posOinC, posCinO)) {
+                int skip = Math.min(posOinC, endComparative - posComparative);
+                posComparative += skip;
+                nbError += skip;
+                ++nbSyncComparative;
+            } else {
+                ++posComparative;
+                ++posOriginal;
                 ++nbError;
+                ++nbSyncBoth;
             }
-        } else {
-            comparative.removeFirst();
-            original.removeFirst();
-            ++nbError;
         }
     }
 }
@@ -0,0 +1,316 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ranking;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of the prepared documents in a directory, kept from a run to the
+ * next.
+ * <p>
+ * A document is stored as the words of its dictionary and the identifiers of
+ * its words, in a file named by the SHA-256 hash of its text and the
+ * {@link Tokenizer#VERSION}. When the same text is prepared again, the file is
+ * memory-mapped and the document rebuilt without splitting the text. The
+ * cache is not used if the word normalization changes, the version being part
+ * of the key.
+ * <p>
+ * The size of the directory is bounded: when it is exceeded, the least
+ * recently used files are deleted. The last use of a file is its modification
+ * time, updated at each hit. A file which can not be read or written is
+ * ignored, the document being prepared from its text.
+ * <p>
+ * A cache can be shared by several threads, and by several processes using the
+ * same directory: the files are written in a temporary file and moved in one
+ * step.
+ * <p>
+ * File format, big-endian: <br>
+ * <ul>
+ * <li>int: magic number "ROTC"</li>
+ * <li>int: format version</li>
+ * <li>int: {@link Tokenizer#VERSION}</li>
+ * <li>int: number of different word, int: number of word</li>
+ * <li>for each different word, int: length, then its UTF-16 chars</li>
+ * <li>int: identifier of each word of the document</li>
+ * </ul>
+ * <p>
+ * @author Nils Ryter
+ */
+public class TokenCache {
+
+    //Suffix of the cache files
+    private static final String EXTENSION = ".tok";
+    //Version of the file format
+    private static final int FORMAT = 1;
+    //First int of the cache files
+    private static final int MAGIC = 0x524F5443;
+    //Directory of the cache files
+    private final Path directory;
+    //Maximum size of the directory, in bytes
+    private final long maxBytes;
+    //Number of document found in the cache
+    private final AtomicLong nbHit = new AtomicLong();
+    //Number of document missing from the cache
+    private final AtomicLong nbMiss = new AtomicLong();
+    //Total size of the cache files, in bytes
+    private long size;
+
+    /**
+     * Open a cache directory, created if it doesn't exist.
+     * <p>
+     * @param directory Directory of the cache files
+     * @param maxBytes Maximum size of the directory, in bytes
+     * @throws IOException The directory can not be created or listed
+     */
+    public TokenCache(Path directory, long maxBytes) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.maxBytes = maxBytes;
+        for (Path p : list()) {
+            size += Files.size(p);
+        }
+    }
+
+    /**
+     * Return the number of document found in the cache.
+     * <p>
+     * @return Number of hit
+     */
+    public long getNbHit() {
+        return nbHit.get();
+    }
+
+    /**
+     * Return the number of document missing from the cache.
+     * <p>
+     * @return Number of miss
+     */
+    public long getNbMiss() {
+        return nbMiss.get();
+    }
+
+    /**
+     * Prepare a document, from the cache if its text was prepared before.
+     * <p>
+     * @param text Text of the document
+     * @return Prepared document
+     */
+    public PreparedDocument prepare(String text) {
+        Path file = directory.resolve(key(text) + EXTENSION);
+        PreparedDocument document = read(file, text);
+        if (document != null) {
+            nbHit.incrementAndGet();
+            return document;
+        }
+        nbMiss.incrementAndGet();
+        document = new PreparedDocument(text);
+        write(file, document);
+        return document;
+    }
+
+    /**
+     * Compute the key of a text: its SHA-256 hash and the normalization
+     * version.
+     * <p>
+     * @param text Text of the document
+     * @return Key, usable as file name
+     */
+    static String key(String text) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            byte[] hash = md.digest(text.getBytes(StandardCharsets.UTF_8));
+            StringBuilder s = new StringBuilder(hash.length * 2 + 4);
+            for (byte b : hash) {
+                s.append(Character.forDigit((b >> 4) & 0xF, 16))
+                        .append(Character.forDigit(b & 0xF, 16));
+            }
+            return s.append("-v").append(Tokenizer.VERSION).toString();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Delete the least recently used files until the directory fits in its
+     * maximum size. The file just added is kept.
+     * <p>
+     * @param file File added to the cache
+     * @param added Size of the file added to the cache
+     */
+    private synchronized void evict(Path file, long added) {
+        size += added;
+        if (size <= maxBytes) {
+            return;
+        }
+        try {
+            List<Path> files = list();
+            long[] times = new long[files.size()];
+            long[] sizes = new long[files.size()];
+            Integer[] order = new Integer[files.size()];
+            size = 0;
+            for (int i = 0; i < order.length; ++i) {
+                times[i] = Files.getLastModifiedTime(files.get(i)).toMillis();
+                sizes[i] = Files.size(files.get(i));
+                size += sizes[i];
+                order[i] = i;
+            }
+            //Least recently used first
+            Arrays.sort(order, Comparator.comparingLong((i) -> times[i]));
+            for (int i = 0; i < order.length && size > maxBytes; ++i) {
+                Path p = files.get(order[i]);
+                if (!p.equals(file) && Files.deleteIfExists(p)) {
+                    size -= sizes[order[i]];
+                }
+            }
+        } catch (IOException ex) {
+            //The files will be evicted by the next write
+        }
+    }
+
+    /**
+     * List the cache files.
+     * <p>
+     * @return Paths of the files
+     * @throws IOException The directory can not be listed
+     */
+    private List<Path> list() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> s = Files.newDirectoryStream(directory,
+                "*" + EXTENSION)) {
+            for (Path p : s) {
+                files.add(p);
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Read a document from a cache file.
+     * <p>
+     * @param file Cache file
+     * @param text Text of the document
+     * @return Prepared document, or null if the file doesn't exist or is not
+     * valid
+     */
+    private PreparedDocument read(Path file, String text) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (FileChannel c = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer b = c.map(FileChannel.MapMode.READ_ONLY, 0,
+                    c.size());
+            if (b.getInt() != MAGIC || b.getInt() != FORMAT
+                    || b.getInt() != Tokenizer.VERSION) {
+                return null;
+            }
+            String[] words = new String[b.getInt()];
+            int[] ids = new int[b.getInt()];
+            for (int i = 0; i < words.length; ++i) {
+                char[] chars = new char[b.getInt()];
+                CharBuffer cb = b.asCharBuffer();
+                cb.get(chars);
+                b.position(b.position() + chars.length * 2);
+                words[i] = new String(chars);
+            }
+            IntBuffer ib = b.asIntBuffer();
+            ib.get(ids);
+            for (int id : ids) {
+                if (id < 0 || id >= words.length) {
+                    return null;
+                }
+            }
+            Files.setLastModifiedTime(file, FileTime.fromMillis(
+                    System.currentTimeMillis()));
+            return new PreparedDocument(text, words, ids);
+        } catch (IOException | RuntimeException ex) {
+            //Truncated or deleted file, prepare the text again
+            return null;
+        }
+    }
+
+    /**
+     * Write a document in a cache file.
+     * <p>
+     * @param file Cache file
+     * @param document Prepared document
+     */
+    private void write(Path file, PreparedDocument document) {
+        int nbWord = document.getNbWord();
+        int nbDifferentWord = document.getNbDifferentWord();
+        long length = 20 + 4L * (nbWord + nbDifferentWord);
+        for (int id = 0; id < nbDifferentWord; ++id) {
+            length += 2L * document.getWord(id).length();
+        }
+        if (length > Math.min(maxBytes, Integer.MAX_VALUE)) {
+            return;
+        }
+        ByteBuffer b = ByteBuffer.allocate((int) length);
+        b.putInt(MAGIC).putInt(FORMAT).putInt(Tokenizer.VERSION);
+        b.putInt(nbDifferentWord).putInt(nbWord);
+        for (int id = 0; id < nbDifferentWord; ++id) {
+            String w = document.getWord(id);
+            b.putInt(w.length());
+            for (int i = 0; i < w.length(); ++i) {
+                b.putChar(w.charAt(i));
+            }
+        }
+        for (int i = 0; i < nbWord; ++i) {
+            b.putInt(document.getId(i));
+        }
+        b.flip();
+        Path tmp = null;
+        try {
+            tmp = Files.createTempFile(directory, "tmp", ".part");
+            try (FileChannel c = FileChannel.open(tmp,
+                    StandardOpenOption.WRITE)) {
+                while (b.hasRemaining()) {
+                    c.write(b);
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            evict(file, length);
+        } catch (IOException ex) {
+            //The document is only kept in memory
+            try {
+                if (tmp != null) {
+                    Files.deleteIfExists(tmp);
+                }
+            } catch (IOException e) {
+                //Nothing more to do
+            }
+        }
+    }
+}
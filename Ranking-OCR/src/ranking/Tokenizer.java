@@ -0,0 +1,350 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ranking;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.CharBuffer;
+import java.text.Normalizer;
+import java.text.Normalizer.Form;
+import java.util.Arrays;
+
+/**
+ * Split a text in normalized words.
+ * <p>
+ * The text is walked once, char by char: <br>
+ * <ul>
+ * <li>Letters and numbers of any script are part of the words. Accented
+ * charters are replaced by their un-accented charter. </li>
+ * <li>Combining diacritical marks are ignored, so a decomposed accented charter
+ * gives the same word than a precomposed one. </li>
+ * <li>All the other charters separate the words. </li>
+ * </ul>
+ * The current word is built in a reused buffer, so no String is created while
+ * the text is split. The text can be read from a {@link Reader} by chunks, so
+ * a document of any size is split with a constant memory. The accents of the
+ * charters below {@code U+2000} (Latin, Greek, Cyrillic...) are removed with a
+ * table computed once with the {@link Normalizer}.
+ * <p>
+ * A tokenizer is not thread safe, each thread must use its own tokenizer.
+ * <p>
+ * @author Nils Ryter
+ */
+public class Tokenizer {
+
+    /**
+     * Version of the word normalization. It changes each time a text can be
+     * split in other words, so the words stored by a previous version are not
+     * reused.
+     */
+    public static final int VERSION = 1;
+    //Charters with a folding table entry are lower than this limit
+    private static final int FOLD_LIMIT = 0x2000;
+    //Folding table value of the charters which separate the words
+    private static final char SEPARATOR = '\u0000';
+    //Folding table value of the charters which are ignored
+    private static final char SKIP = '\uFFFF';
+    //Folding table: un-accented charter, SEPARATOR or SKIP
+    private static final char[] FOLD = new char[FOLD_LIMIT];
+    //Position of the text chunk in the whole text
+    private int base = 0;
+    //Chunk buffer when the text is read from a reader
+    private char[] buffer = null;
+    //Position after the current word in the text
+    private int end = 0;
+    //Length of the text chunk
+    private int limit = 0;
+    //Position of the next charter to read in the text chunk
+    private int position = 0;
+    //Reader of the text, null if the text is a char sequence
+    private Reader reader = null;
+    //Position of the current word in the text
+    private int start = 0;
+    //Text chunk to split
+    private CharSequence text = "";
+    //Current word
+    private final StringBuilder word = new StringBuilder(32);
+
+    static {
+        //<editor-fold defaultstate="collapsed" desc="Folding table">
+        for (char c = 0; c < FOLD_LIMIT; ++c) {
+            if (isDiacritic(c)) {
+                FOLD[c] = SKIP;
+            } else if (isWordChar(c)) {
+                String d = Normalizer.normalize(String.valueOf(c), Form.NFD);
+                boolean accented = d.length() > 1;
+                for (int i = 1; i < d.length(); ++i) {
+                    accented &= isDiacritic(d.charAt(i));
+                }
+                FOLD[c] = accented ? d.charAt(0) : c;
+            } else {
+                FOLD[c] = SEPARATOR;
+            }
+        }
+        //</editor-fold>
+    }
+
+    /**
+     * Create a new Tokenizer on an empty text.
+     */
+    public Tokenizer() {
+    }
+
+    /**
+     * Create a new Tokenizer.
+     * <p>
+     * @param text Text to split
+     */
+    public Tokenizer(CharSequence text) {
+        reset(text);
+    }
+
+    /**
+     * Create a new Tokenizer reading the text from a reader.
+     * <p>
+     * @param reader Reader of the text to split
+     */
+    public Tokenizer(Reader reader) {
+        reset(reader);
+    }
+
+    /**
+     * Return the position after the current word in the text.
+     * <p>
+     * @return Position in the text
+     */
+    public int getEnd() {
+        return end;
+    }
+
+    /**
+     * Return the position of the current word in the text.
+     * <p>
+     * @return Position in the text
+     */
+    public int getStart() {
+        return start;
+    }
+
+    /**
+     * Split a text and return the identifiers of its words, adding the unknown
+     * words to the dictionary.
+     * <p>
+     * @param text Text to split
+     * @param dictionary Dictionary of the words
+     * @return Identifier of each word
+     */
+    public int[] intern(CharSequence text, WordDictionary dictionary) {
+        return encode(text, dictionary, true);
+    }
+
+    /**
+     * Split a text and return the identifiers of its words without changing
+     * the dictionary.
+     * <p>
+     * @param text Text to split
+     * @param dictionary Dictionary of the words
+     * @return Identifier of each word, {@link WordDictionary#UNKNOWN} for the
+     * words which aren't in the dictionary
+     */
+    public int[] lookup(CharSequence text, WordDictionary dictionary) {
+        return encode(text, dictionary, false);
+    }
+
+    /**
+     * Move to the next word of the text.
+     * <p>
+     * @return True if a word was found, false if the end of the text is reached
+     * @throws UncheckedIOException The text can not be read from the reader
+     */
+    public boolean next() {
+        word.setLength(0);
+        while (position < limit || fill()) {
+            int p = base + position;
+            char c = text.charAt(position++);
+            if (c < FOLD_LIMIT) {
+                char f = FOLD[c];
+                if (f == SEPARATOR) {
+                    if (word.length() > 0) {
+                        end = p;
+                        return true;
+                    }
+                } else if (f != SKIP) {
+                    if (word.length() == 0) {
+                        start = p;
+                    }
+                    word.append(f);
+                }
+            } else if (Character.isHighSurrogate(c)
+                    && (position < limit || fill())
+                    && Character.isLowSurrogate(text.charAt(position))) {
+                char low = text.charAt(position++);
+                if (isWordChar(Character.toCodePoint(c, low))) {
+                    if (word.length() == 0) {
+                        start = p;
+                    }
+                    word.append(c).append(low);
+                } else if (word.length() > 0) {
+                    end = p;
+                    return true;
+                }
+            } else if (isDiacritic(c)) {
+                //Ignored charter
+            } else if (isWordChar(c)) {
+                if (word.length() == 0) {
+                    start = p;
+                }
+                word.append(c);
+            } else if (word.length() > 0) {
+                end = p;
+                return true;
+            }
+        }
+        end = base + position;
+        return word.length() > 0;
+    }
+
+    /**
+     * Restart the tokenizer on a new text.
+     * <p>
+     * @param text Text to split
+     * @return This tokenizer
+     */
+    public Tokenizer reset(CharSequence text) {
+        this.text = text;
+        reader = null;
+        limit = text.length();
+        base = 0;
+        position = 0;
+        start = 0;
+        end = 0;
+        word.setLength(0);
+        return this;
+    }
+
+    /**
+     * Restart the tokenizer on a new text read from a reader. The reader isn't
+     * closed by the tokenizer.
+     * <p>
+     * @param reader Reader of the text to split
+     * @return This tokenizer
+     */
+    public Tokenizer reset(Reader reader) {
+        if (buffer == null) {
+            buffer = new char[8192];
+        }
+        reset(CharBuffer.wrap(buffer));
+        this.reader = reader;
+        limit = 0;
+        return this;
+    }
+
+    /**
+     * Return the current word. The returned buffer is reused by the next call
+     * to {@link #next()}.
+     * <p>
+     * @return Normalized word
+     */
+    public CharSequence token() {
+        return word;
+    }
+
+    /**
+     * Split a text and convert its words to identifiers.
+     * <p>
+     * @param text Text to split
+     * @param dictionary Dictionary of the words
+     * @param intern True to add the unknown words to the dictionary
+     * @return Identifier of each word
+     */
+    private int[] encode(CharSequence text, WordDictionary dictionary,
+            boolean intern) {
+        reset(text);
+        int[] ids = new int[Math.max(16, text.length() / 6)];
+        int nb = 0;
+        while (next()) {
+            if (nb == ids.length) {
+                ids = Arrays.copyOf(ids, nb << 1);
+            }
+            ids[nb++] = intern ? dictionary.intern(word)
+                    : dictionary.lookup(word);
+        }
+        return Arrays.copyOf(ids, nb);
+    }
+
+    /**
+     * Read the next chunk of the text from the reader.
+     * <p>
+     * @return True if charters were read, false at the end of the text
+     * @throws UncheckedIOException The text can not be read
+     */
+    private boolean fill() {
+        if (reader == null) {
+            return false;
+        }
+        try {
+            int n = reader.read(buffer);
+            while (n == 0) {
+                n = reader.read(buffer);
+            }
+            base += limit;
+            position = 0;
+            limit = Math.max(n, 0);
+            return n > 0;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Check if a charter is a combining diacritical mark.
+     * <p>
+     * @param c Charter to check
+     * @return True if the charter is a diacritical mark
+     */
+    private static boolean isDiacritic(int c) {
+        return c >= 0x0300 && c <= 0x036F || c >= 0x1AB0 && c <= 0x1AFF
+                || c >= 0x1DC0 && c <= 0x1DFF || c >= 0x20D0 && c <= 0x20FF
+                || c >= 0xFE20 && c <= 0xFE2F;
+    }
+
+    /**
+     * Check if a charter is part of a word: letters, numbers and the marks
+     * which complete the letters in some scripts.
+     * <p>
+     * @param c Code point of the charter to check
+     * @return True if the charter is part of a word
+     */
+    private static boolean isWordChar(int c) {
+        switch (Character.getType(c)) {
+            case Character.UPPERCASE_LETTER:
+            case Character.LOWERCASE_LETTER:
+            case Character.TITLECASE_LETTER:
+            case Character.MODIFIER_LETTER:
+            case Character.OTHER_LETTER:
+            case Character.DECIMAL_DIGIT_NUMBER:
+            case Character.LETTER_NUMBER:
+            case Character.OTHER_NUMBER:
+            case Character.NON_SPACING_MARK:
+            case Character.COMBINING_SPACING_MARK:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
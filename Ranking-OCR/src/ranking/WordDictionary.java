@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ranking;
+
+import java.util.Arrays;
+
+/**
+ * Dictionary which gives an integer identifier to each word.
+ * <p>
+ * Words of the original document are interned in the dictionary, words of the
+ * comparative documents are only looked up. A word missing from the original
+ * can't match any original word, so all of them share the {@link #UNKNOWN}
+ * identifier and the dictionary can be reused for every comparison against the
+ * same original.
+ * <p>
+ * The words are looked up as {@link CharSequence}, so a reused buffer can be
+ * given without creating a String for each word. The dictionary is not thread
+ * safe while words are interned. Once filled, it can be shared by several
+ * threads for look up.
+ * <p>
+ * @author Nils Ryter
+ */
+public class WordDictionary {
+
+    /**
+     * Identifier of the words which are not in the dictionary.
+     */
+    public static final int UNKNOWN = -1;
+    //Hash of each word, indexed by identifier
+    private int[] hashes;
+    //Number of word in the dictionary
+    private int size = 0;
+    //Hash table of identifiers plus one, zero if the slot is empty
+    private int[] table;
+    //Words, indexed by identifier
+    private String[] words;
+
+    /**
+     * Create a new empty WordDictionary.
+     */
+    public WordDictionary() {
+        this(64);
+    }
+
+    /**
+     * Create a new empty WordDictionary.
+     * <p>
+     * @param capacity Expected number of different words
+     */
+    public WordDictionary(int capacity) {
+        int c = Math.max(16, Integer.highestOneBit(Math.max(1, capacity)) << 1);
+        table = new int[c << 1];
+        hashes = new int[c];
+        words = new String[c];
+    }
+
+    /**
+     * Return the word of an identifier.
+     * <p>
+     * @param id Identifier of the word
+     * @return Word
+     */
+    public String getWord(int id) {
+        return words[id];
+    }
+
+    /**
+     * Return the identifier of a word, adding it to the dictionary if needed.
+     * <p>
+     * @param word Word to intern
+     * @return Identifier of the word
+     */
+    public int intern(CharSequence word) {
+        int h = hash(word);
+        int mask = table.length - 1;
+        int slot = h & mask;
+        while (table[slot] != 0) {
+            int id = table[slot] - 1;
+            if (hashes[id] == h && contentEquals(words[id], word)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        //New word
+        if (size == words.length) {
+            grow();
+            return intern(word);
+        }
+        hashes[size] = h;
+        words[size] = word.toString();
+        table[slot] = ++size;
+        return size - 1;
+    }
+
+    /**
+     * Return the identifier of a word without changing the dictionary.
+     * <p>
+     * @param word Word to find
+     * @return Identifier of the word, or {@link #UNKNOWN} if the word isn't in
+     * the dictionary
+     */
+    public int lookup(CharSequence word) {
+        int h = hash(word);
+        int mask = table.length - 1;
+        int slot = h & mask;
+        while (table[slot] != 0) {
+            int id = table[slot] - 1;
+            if (hashes[id] == h && contentEquals(words[id], word)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return UNKNOWN;
+    }
+
+    /**
+     * Return the number of word in the dictionary.
+     * <p>
+     * @return Number of word
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Compare a word of the dictionary to a char sequence.
+     * <p>
+     * @param s Word of the dictionary
+     * @param cs Char sequence to compare
+     * @return True if both have the same chars
+     */
+    private static boolean contentEquals(String s, CharSequence cs) {
+        int length = s.length();
+        if (length != cs.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; ++i) {
+            if (s.charAt(i) != cs.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Double the capacity of the dictionary.
+     */
+    private void grow() {
+        int c = words.length << 1;
+        hashes = Arrays.copyOf(hashes, c);
+        words = Arrays.copyOf(words, c);
+        table = new int[c << 1];
+        int mask = table.length - 1;
+        for (int id = 0; id < size; ++id) {
+            int slot = hashes[id] & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = id + 1;
+        }
+    }
+
+    /**
+     * Compute the hash of a word, same as {@link String#hashCode()} with the
+     * high bits spread on the low bits.
+     * <p>
+     * @param word Word to hash
+     * @return Hash of the word
+     */
+    private static int hash(CharSequence word) {
+        int h = 0;
+        for (int i = 0, length = word.length(); i < length; ++i) {
+            h = 31 * h + word.charAt(i);
+        }
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ranking;
+
+import events.AlignEvent;
+import java.util.Arrays;
+
+/**
+ * Rank a text document to a original document by its word error rate (WER).
+ * <p>
+ * The errors are the exact Levenshtein distance between the word sequences of
+ * the documents: the minimum number of word insertions, deletions and
+ * substitutions which change the original into the comparative document. The
+ * rate is the number of errors divided by the number of words of the
+ * original.
+ * <p>
+ * The distance is computed with the bit-parallel algorithm of Myers, in the
+ * blocked form of Hyyrö: a column of the dynamic programming matrix is encoded
+ * as vertical deltas in blocks of 64 original words, so each comparative word
+ * costs one pass over the blocks. Only the blocks crossing a diagonal band
+ * around the expected alignment are computed, the band being doubled until it
+ * contains the distance, so the cost grows with the number of errors rather
+ * than with the square of the document size. With a maximum error rate, the
+ * band is the maximum number of error and is computed once. The match masks
+ * of a comparative word are built from the position index of the
+ * {@link PreparedDocument}.
+ * <p>
+ * @author Nils Ryter
+ */
+public class WordErrorRanker implements SegmentRanker {
+
+    /**
+     * Create a new WordErrorRanker.
+     */
+    public WordErrorRanker() {
+    }
+
+    @Override
+    public RankResult rank(String original, String comparative) {
+        return rank(prepare(original), comparative);
+    }
+
+    @Override
+    public RankResult rank(PreparedDocument original, String comparative) {
+        return rank(original, original.lookup(comparative), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public RankResult rank(PreparedDocument original, String comparative,
+            double maxRate) {
+        long maxError = RankResult.maxError(maxRate, original.getNbWord());
+        return rank(original, original.lookup(comparative),
+                (int) Math.min(Math.max(maxError, -1), Integer.MAX_VALUE));
+    }
+
+    @Override
+    public RankResult rank(PreparedDocument original, int[] comparative,
+            int originalFrom, int originalTo, int comparativeFrom,
+            int comparativeTo) {
+        PreparedDocument segment = originalFrom == 0
+                && originalTo == original.getNbWord() ? original
+                        : new PreparedDocument(original, originalFrom,
+                                originalTo);
+        return rank(segment, Arrays.copyOfRange(comparative, comparativeFrom,
+                comparativeTo), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Compute the Levenshtein distance between the original words and the
+     * comparative words.
+     * <p>
+     * @param original Original document
+     * @param comparative Identifiers of the words of the document to compare
+     * @return Number of word insertions, deletions and substitutions
+     */
+    static int distance(PreparedDocument original, int[] comparative) {
+        return distance(original, comparative, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Compute the Levenshtein distance between the original words and the
+     * comparative words, up to a limit.
+     * <p>
+     * @param original Original document
+     * @param comparative Identifiers of the words of the document to compare
+     * @param limit Maximum distance to compute
+     * @return Number of word insertions, deletions and substitutions if lower
+     * or equal to limit, a lower bound greater than limit otherwise
+     */
+    static int distance(PreparedDocument original, int[] comparative,
+            int limit) {
+        int m = original.getNbWord();
+        int n = comparative.length;
+        if (Math.abs(m - n) > limit) {
+            return Math.abs(m - n);
+        }
+        //Start with a small band and double it until the distance fits in
+        int k = Math.min(Math.max(Math.abs(m - n), 64), limit);
+        while (true) {
+            int d = band(original, comparative, k);
+            if (d <= k || k >= Math.max(m, n)) {
+                return d;
+            } else if (k >= limit) {
+                //The cells out of the band are over-estimated
+                return k + 1;
+            }
+            k = k < limit / 2 ? k << 1 : limit;
+        }
+    }
+
+    /**
+     * Compute the Levenshtein distance with the cells of the matrix limited to
+     * a diagonal band (Ukkonen).
+     * <p>
+     * Only the blocks crossing the band {@code |i - j| <= k} are computed. The
+     * cells out of the band are over-estimated, so the result is exact if it is
+     * lower or equal to k, and greater than k otherwise.
+     * <p>
+     * @param original Original document
+     * @param comparative Identifiers of the words of the document to compare
+     * @param k Half width of the band, at least the difference of length of
+     * the documents
+     * @return Distance, exact if lower or equal to k
+     */
+    private static int band(PreparedDocument original, int[] comparative,
+            int k) {
+        int m = original.getNbWord();
+        int n = comparative.length;
+        if (m == 0 || n == 0) {
+            return m + n;
+        }
+        int nbBlock = (m + 63) >>> 6;
+        //Vertical deltas of the current column, +1 and -1
+        long[] pv = new long[nbBlock];
+        long[] mv = new long[nbBlock];
+        //Positions of the current comparative word in the original
+        long[] eq = new long[nbBlock];
+        //Value of the last row of each block in the current column
+        int[] score = new int[nbBlock];
+        long lastRow = 1L << ((m - 1) & 63);
+        int firstBlock = 0;
+        int lastBlock = -1;
+        for (int j = 1; j <= n; ++j) {
+            //Blocks crossing the band in this column
+            firstBlock = Math.max(firstBlock, Math.floorDiv(j - k - 1, 64));
+            int bandEnd = Math.min(nbBlock - 1, Math.floorDiv(j + k - 1, 64));
+            while (lastBlock < bandEnd) {
+                //New block below the band, vertical deltas +1
+                ++lastBlock;
+                pv[lastBlock] = -1L;
+                mv[lastBlock] = 0;
+                score[lastBlock] = (lastBlock == 0 ? 0 : score[lastBlock - 1])
+                        + Math.min(64, m - (lastBlock << 6));
+            }
+            //Occurrences of the comparative word in the blocks of the band
+            int id = comparative[j - 1];
+            int first = original.getEntryFrom(id, firstBlock << 6);
+            int end = original.getEntryFrom(id, (lastBlock + 1) << 6);
+            for (int o = first; o < end; ++o) {
+                int p = original.getPositionAt(o);
+                eq[p >>> 6] |= 1L << p;
+            }
+            //Horizontal delta entering the block, +1 above the band
+            int hin = 1;
+            for (int b = firstBlock; b <= lastBlock; ++b) {
+                long p = pv[b];
+                long mm = mv[b];
+                long e = eq[b];
+                long hinNeg = hin < 0 ? 1L : 0L;
+                long xv = e | mm;
+                e |= hinNeg;
+                long xh = (((e & p) + p) ^ p) | e;
+                long ph = mm | ~(xh | p);
+                long mh = p & xh;
+                long high = b == nbBlock - 1 ? lastRow : Long.MIN_VALUE;
+                int hout = (ph & high) != 0 ? 1 : (mh & high) != 0 ? -1 : 0;
+                ph = (ph << 1) | (hin > 0 ? 1L : 0L);
+                mh = (mh << 1) | hinNeg;
+                pv[b] = mh | ~(xv | ph);
+                mv[b] = ph & xv;
+                score[b] += hout;
+                hin = hout;
+            }
+            //Clear the masks
+            for (int o = first; o < end; ++o) {
+                eq[original.getPositionAt(o) >>> 6] = 0;
+            }
+        }
+        return score[nbBlock - 1];
+    }
+
+    /**
+     * Align the words of the documents, up to a number of error.
+     * <p>
+     * @param original Original document
+     * @param comparative Identifiers of the words of the document to compare
+     * @param maxError Maximum number of error to count
+     * @return Result of the comparison, bounded if there are more errors than
+     * maxError
+     */
+    private RankResult rank(PreparedDocument original, int[] comparative,
+            int maxError) {
+        AlignEvent event = new AlignEvent();
+        event.begin();
+        long t = System.nanoTime();
+        int m = original.getNbWord();
+        int nbError = distance(original, comparative, maxError);
+        RankingStats.getInstance().record(RankingStats.Phase.ALIGN,
+                System.nanoTime() - t);
+        event.end();
+        if (event.shouldCommit()) {
+            event.ranker = getClass().getSimpleName();
+            event.originalWords = m;
+            event.comparativeWords = comparative.length;
+            event.errors = nbError;
+            event.commitDocuments();
+        }
+        return new RankResult(nbError, m, nbError <= maxError ? nbError
+                : Math.max(m, comparative.length));
+    }
+}
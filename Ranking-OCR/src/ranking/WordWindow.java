@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ranking;
+
+import java.io.Reader;
+
+/**
+ * Bounded window on the next words of a document read from a reader.
+ * <p>
+ * The words are kept in a ring of reused buffers, so walking a document of any
+ * size uses a constant memory.
+ * <p>
+ * @author Nils Ryter
+ */
+class WordWindow {
+
+    //Hash of the words in the window
+    private final int[] hashes;
+    //Position of the current word in the ring
+    private int head = 0;
+    //Number of word removed from the window
+    private int nbSkipped = 0;
+    //Number of word in the window
+    private int size = 0;
+    //Split the document in words
+    private final Tokenizer tokenizer;
+    //Ring of the words in the window
+    private final StringBuilder[] words;
+
+    /**
+     * Create a new WordWindow.
+     * <p>
+     * @param reader Reader of the document
+     * @param capacity Number of word kept in the window
+     */
+    WordWindow(Reader reader, int capacity) {
+        tokenizer = new Tokenizer(reader);
+        hashes = new int[capacity];
+        words = new StringBuilder[capacity];
+        for (int i = 0; i < capacity; ++i) {
+            words[i] = new StringBuilder(32);
+        }
+        fill();
+    }
+
+    /**
+     * Search a word in the window.
+     * <p>
+     * @param other Window of the word to find
+     * @param n Position of the word to find in the other window
+     * @return Position of the word in this window, or -1 if the word doesn't
+     * appear in the window
+     */
+    int indexOf(WordWindow other, int n) {
+        for (int i = 0; i < size; ++i) {
+            if (matches(i, other, n)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Check if the window is empty, meaning the end of the document is reached.
+     * <p>
+     * @return True if there is no more word
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Compare a word of this window to a word of an other window.
+     * <p>
+     * @param i Position of the word in this window
+     * @param other Other window
+     * @param j Position of the word in the other window
+     * @return True if the words are the same
+     */
+    boolean matches(int i, WordWindow other, int j) {
+        int a = (head + i) % words.length;
+        int b = (other.head + j) % other.words.length;
+        if (hashes[a] != other.hashes[b]) {
+            return false;
+        }
+        StringBuilder w1 = words[a];
+        StringBuilder w2 = other.words[b];
+        int length = w1.length();
+        if (length != w2.length()) {
+            return false;
+        }
+        for (int k = 0; k < length; ++k) {
+            if (w1.charAt(k) != w2.charAt(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Return the number of word removed from the window.
+     * <p>
+     * @return Number of word
+     */
+    int getNbSkipped() {
+        return nbSkipped;
+    }
+
+    /**
+     * Remove words from the window and read the next words of the document.
+     * <p>
+     * @param n Number of word to remove
+     */
+    void skip(int n) {
+        head = (head + n) % words.length;
+        size -= n;
+        nbSkipped += n;
+        fill();
+    }
+
+    /**
+     * Remove all the remaining words of the document.
+     * <p>
+     * @return Number of word removed
+     */
+    int skipAll() {
+        int n = 0;
+        while (size > 0) {
+            n += size;
+            skip(size);
+        }
+        return n;
+    }
+
+    /**
+     * Read words until the window is full or the end of the document.
+     */
+    private void fill() {
+        while (size < words.length && tokenizer.next()) {
+            int i = (head + size) % words.length;
+            CharSequence token = tokenizer.token();
+            StringBuilder w = words[i];
+            w.setLength(0);
+            w.append(token);
+            int h = 0;
+            for (int k = 0; k < w.length(); ++k) {
+                h = 31 * h + w.charAt(k);
+            }
+            hashes[i] = h;
+            ++size;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package events;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import ranking.SimpleRanker;
+
+/**
+ * Test class for the Flight Recorder events of the ranking.
+ * <p>
+ * @author Nils Ryter
+ */
+public class DocumentEventTest {
+
+    /**
+     * Test of the align and tokenize events of SimpleRanker.
+     * <p>
+     * @throws IOException The recording can not be written
+     */
+    @Test
+    public void testSimpleRankerEvents() throws IOException {
+        System.out.println("test events");
+        Path file = Files.createTempFile("ranking", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("rankerocr.Align").withoutThreshold();
+            recording.enable("rankerocr.Tokenize").withoutThreshold();
+            recording.start();
+            DocumentContext.set("o.txt", "c.txt");
+            try {
+                new SimpleRanker().rank("GG FF HH ZZ UU II",
+                        "GG v ZZ v v FF HH ZZ UU II");
+            } finally {
+                DocumentContext.clear();
+            }
+            recording.stop();
+            recording.dump(file);
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            RecordedEvent align = null;
+            int nbTokenize = 0;
+            for (RecordedEvent e : events) {
+                assertEquals("o.txt", e.getString("original"));
+                assertEquals("c.txt", e.getString("comparative"));
+                if (e.getEventType().getName().equals("rankerocr.Align")) {
+                    align = e;
+                } else {
+                    ++nbTokenize;
+                }
+            }
+            assertEquals(2, nbTokenize);
+            assertNotNull(align);
+            assertEquals(4, align.getLong("errors"));
+            assertEquals(6, align.getLong("originalWords"));
+            assertEquals(10, align.getLong("comparativeWords"));
+            assertEquals("SimpleRanker", align.getString("ranker"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package libraries;
+
+import java.io.IOException;
+import java.io.Reader;
+import org.junit.Test;
+import ranking.WordErrorRanker;
+import static org.junit.Assert.*;
+
+/**
+ * Test class for NoiseGenerator.
+ * <p>
+ * @author Nils Ryter
+ */
+public class NoiseGeneratorTest {
+
+    //Original text
+    private static final String TEXT = "Hello, dear i want to check your "
+            + "hand.\nBut warning! The *** is not for you\nSee you soon\n";
+
+    /**
+     * Read a whole reader.
+     * <p>
+     * @param r Reader
+     * @return Text read
+     * @throws IOException Never thrown by the generator
+     */
+    private static String read(Reader r) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        char[] buffer = new char[7];
+        for (int n; (n = r.read(buffer)) >= 0;) {
+            sb.append(buffer, 0, n);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Test of class NoiseGenerator without errors.
+     * <p>
+     * @throws IOException Never thrown by the generator
+     */
+    @Test
+    public void testNoiseGenerator1() throws IOException {
+        System.out.println("test 1");
+        NoiseGenerator instance = new NoiseGenerator(TEXT, 1);
+        StringBuilder original = new StringBuilder();
+        instance.writeOriginal(original, 1000);
+        assertEquals(1000, original.length());
+        assertEquals(1000, instance.getNbCharacter());
+        assertTrue(original.toString().startsWith(TEXT + TEXT));
+        StringBuilder comparative = new StringBuilder();
+        instance.writeComparative(comparative, 1000);
+        assertEquals(original.toString(), comparative.toString());
+    }
+
+    /**
+     * Test of class NoiseGenerator, the documents are the same for the same
+     * seed, written or read.
+     * <p>
+     * @throws IOException Never thrown by the generator
+     */
+    @Test
+    public void testNoiseGenerator2() throws IOException {
+        System.out.println("test 2");
+        NoiseGenerator instance = new NoiseGenerator(TEXT, 7);
+        instance.setNoise(0.2);
+        StringBuilder comparative = new StringBuilder();
+        instance.writeComparative(comparative, 50000);
+        long nbSubstitution = instance.getNbSubstitution();
+        assertTrue(nbSubstitution > 0);
+        assertTrue(instance.getNbReorderedBlock() > 0);
+        assertEquals(comparative.toString(),
+                read(instance.openComparative(50000)));
+        assertEquals(nbSubstitution, instance.getNbSubstitution());
+        NoiseGenerator other = new NoiseGenerator(TEXT, 8);
+        other.setNoise(0.2);
+        assertNotEquals(comparative.toString(),
+                read(other.openComparative(50000)));
+    }
+
+    /**
+     * Test of class NoiseGenerator, the word errors of dropped lines are
+     * known.
+     * <p>
+     * @throws IOException Never thrown by the generator
+     */
+    @Test
+    public void testNoiseGenerator3() throws IOException {
+        System.out.println("test 3");
+        NoiseGenerator instance = new NoiseGenerator(TEXT, 3);
+        instance.setDroppedLineRate(0.1);
+        String original = read(instance.openOriginal(20000));
+        String comparative = read(instance.openComparative(20000));
+        assertTrue(instance.getNbDroppedWord() > 0);
+        double expResult = (double) instance.getNbDroppedWord()
+                / instance.getNbWord() * 100;
+        assertEquals(expResult,
+                new WordErrorRanker().compare(original, comparative), 1e-9);
+    }
+
+    /**
+     * Test of class NoiseGenerator, the counts of the original are not
+     * changed by a comparative read at the same time.
+     * <p>
+     * @throws IOException Never thrown by the generator
+     */
+    @Test
+    public void testNoiseGenerator4() throws IOException {
+        System.out.println("test 4");
+        NoiseGenerator instance = new NoiseGenerator(TEXT, 5);
+        instance.setNoise(0.1);
+        StringBuilder expected = new StringBuilder();
+        instance.writeOriginal(expected, 5000);
+        long nbWord = instance.getNbWord();
+        assertEquals(5000, instance.getNbCharacter());
+        Reader original = instance.openOriginal(5000);
+        Reader comparative = instance.openComparative(5000);
+        StringBuilder sb = new StringBuilder();
+        char[] buffer = new char[11];
+        boolean end = false;
+        while (!end) {
+            end = true;
+            int n = original.read(buffer);
+            if (n >= 0) {
+                sb.append(buffer, 0, n);
+                end = false;
+            }
+            if (comparative.read(buffer) >= 0) {
+                end = false;
+            }
+        }
+        assertEquals(expected.toString(), sb.toString());
+        assertEquals(5000, instance.getNbCharacter());
+        assertEquals(nbWord, instance.getNbWord());
+    }
+}
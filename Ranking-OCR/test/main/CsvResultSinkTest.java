@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package main;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test class for CsvResultSink.
+ * <p>
+ * @author Nils Ryter
+ */
+public class CsvResultSinkTest {
+
+    /**
+     * Test of the write of the buffer after the maximum delay, without any
+     * other row written.
+     * <p>
+     * @throws IOException A temporary file can not be used
+     * @throws InterruptedException The test is interrupted
+     */
+    @Test
+    public void testFlushMillis() throws IOException, InterruptedException {
+        System.out.println("test flush millis");
+        File f = File.createTempFile("results", ".csv");
+        try (CsvResultSink instance = new CsvResultSink(f, ';',
+                new String[]{"Rate", "Name"}, 1000, 50)) {
+            instance.write("12.5", "a;b.txt");
+            long end = System.currentTimeMillis() + 5000;
+            while (f.length() < 30 && System.currentTimeMillis() < end) {
+                Thread.sleep(20);
+            }
+            assertEquals("Rate;Name\r\n12.5;\"a;b.txt\"\r\n",
+                    new String(Files.readAllBytes(f.toPath())));
+        } finally {
+            f.delete();
+        }
+    }
+
+    /**
+     * Test of the append to a file with other columns.
+     * <p>
+     * @throws IOException A temporary file can not be used
+     */
+    @Test
+    public void testHeader() throws IOException {
+        System.out.println("test header");
+        File f = File.createTempFile("results", ".csv");
+        try {
+            try (CsvResultSink instance = new CsvResultSink(f, ';',
+                    new String[]{"Rate", "Name"}, 1000, 1000)) {
+                instance.write("12.5", "a.txt");
+            }
+            try (CsvResultSink instance = new CsvResultSink(f, ';',
+                    new String[]{"Rate", "Name"}, 1000, 1000)) {
+                instance.write("7.5", "b.txt");
+            }
+            try (CsvResultSink instance = new CsvResultSink(f, ';',
+                    new String[]{"Rate", "Name", "Verdict"}, 1000, 1000)) {
+                fail("Other columns");
+            } catch (IOException ex) {
+                //Refused
+            }
+            assertEquals("Rate;Name\r\n12.5;a.txt\r\n7.5;b.txt\r\n",
+                    new String(Files.readAllBytes(f.toPath())));
+        } finally {
+            f.delete();
+        }
+    }
+}
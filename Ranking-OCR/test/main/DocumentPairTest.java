@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package main;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test class for DocumentPair.
+ * <p>
+ * @author Nils Ryter
+ */
+public class DocumentPairTest {
+
+    /**
+     * Test of fromManifest method, with quoted names holding separators.
+     * <p>
+     * @throws IOException A temporary file can not be used
+     */
+    @Test
+    public void testFromManifest() throws IOException {
+        System.out.println("test from manifest");
+        Path dir = Files.createTempDirectory("manifest");
+        Path manifest = dir.resolve("manifest.csv");
+        Files.write(manifest, ("# pairs\n"
+                + "a.txt;b.txt\n"
+                + "\"résumé, v1.txt\";\"c;d.txt\"\n"
+                + "\"say \"\"hi\"\".txt\" , e.txt\n").getBytes(
+                        StandardCharsets.UTF_8));
+        try {
+            List<DocumentPair> pairs = DocumentPair.fromManifest(
+                    manifest.toFile(), StandardCharsets.UTF_8);
+            assertEquals(3, pairs.size());
+            assertEquals(new File(dir.toFile(), "b.txt"),
+                    pairs.get(0).getComparative());
+            assertEquals("résumé, v1.txt",
+                    pairs.get(1).getOriginal().getName());
+            assertEquals("c;d.txt", pairs.get(1).getComparative().getName());
+            assertEquals("say \"hi\".txt",
+                    pairs.get(2).getOriginal().getName());
+            assertEquals("e.txt", pairs.get(2).getComparative().getName());
+            Files.write(manifest, "\"a.txt;b.txt\n".getBytes(
+                    StandardCharsets.UTF_8));
+            try {
+                DocumentPair.fromManifest(manifest.toFile(),
+                        StandardCharsets.UTF_8);
+                fail("Unclosed quote");
+            } catch (IOException ex) {
+                //Malformed line
+            }
+        } finally {
+            Files.delete(manifest);
+            Files.delete(dir);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package main;
+
+import java.io.File;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import ranking.RankResult;
+
+/**
+ * Test class for Leaderboard.
+ * <p>
+ * @author Nils Ryter
+ */
+public class LeaderboardTest {
+
+    /**
+     * Test of the selection of the best candidates.
+     */
+    @Test
+    public void testTop() {
+        System.out.println("test top");
+        Leaderboard instance = new Leaderboard(3);
+        int[] errors = {7, 2, 9, 0, 5, 2};
+        for (int i = 0; i < errors.length; ++i) {
+            instance.add(new File("engine" + i + ".txt"),
+                    new RankResult(errors[i], 10), 1000000L * i);
+        }
+        assertEquals(6, instance.getNbCandidate());
+        List<Leaderboard.Entry> result = instance.getEntries();
+        assertEquals(3, result.size());
+        assertEquals("engine3.txt", result.get(0).getCandidate().getName());
+        assertEquals("engine1.txt", result.get(1).getCandidate().getName());
+        assertEquals("engine5.txt", result.get(2).getCandidate().getName());
+        assertEquals(5, result.get(2).getMillis(), 1e-9);
+        assertTrue(instance.toString().contains("engine5.txt"));
+        assertFalse(instance.toString().contains("engine4.txt"));
+    }
+
+    /**
+     * Test of a leaderboard keeping all the candidates.
+     */
+    @Test
+    public void testAll() {
+        System.out.println("test all");
+        Leaderboard instance = new Leaderboard(0);
+        for (int i = 0; i < 100; ++i) {
+            instance.add(new File("engine" + i + ".txt"),
+                    new RankResult(100 - i, 100), i);
+        }
+        List<Leaderboard.Entry> result = instance.getEntries();
+        assertEquals(100, result.size());
+        assertEquals("engine99.txt", result.get(0).getCandidate().getName());
+        assertEquals(100, result.get(99).getResult().getRate(), 1e-9);
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package main;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import ranking.SimpleRanker;
+import static org.junit.Assert.*;
+
+/**
+ * Test class for RankingExecutor.
+ * <p>
+ * @author Nils Ryter
+ */
+public class RankingExecutorTest {
+
+    /**
+     * Test of execute method, no job is running once a failure is thrown.
+     */
+    @Test
+    public void testExecuteFailure() {
+        System.out.println("test execute failure");
+        List<DocumentPair> pairs = new ArrayList<>();
+        for (int i = 0; i < 100; ++i) {
+            pairs.add(new DocumentPair(new File("o" + i), new File("c" + i)));
+        }
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger started = new AtomicInteger();
+        RankingExecutor instance = new RankingExecutor(new SimpleRanker(), 4);
+        try {
+            instance.execute(pairs, (p, ranker) -> {
+                running.incrementAndGet();
+                try {
+                    if (started.incrementAndGet() == 2) {
+                        throw new IllegalStateException("failed");
+                    }
+                    Thread.sleep(50);
+                } catch (InterruptedException ex) {
+                    fail("Interrupted");
+                } finally {
+                    running.decrementAndGet();
+                }
+            });
+            fail("The failure is not thrown");
+        } catch (RuntimeException ex) {
+            assertEquals(0, running.get());
+            assertTrue(started.get() < pairs.size());
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package main;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import ranking.RankerRegistry;
+
+/**
+ * Test class for RankingServer.
+ * <p>
+ * @author Nils Ryter
+ */
+public class RankingServerTest {
+
+    //Server on a free port
+    private static RankingServer server;
+
+    /**
+     * Start the server.
+     * <p>
+     * @throws IOException The server can not be started
+     */
+    @BeforeClass
+    public static void setUpClass() throws IOException {
+        server = new RankingServer(0, RankerRegistry.find("simple"),
+                Charset.forName("UTF-8"));
+        server.start();
+    }
+
+    /**
+     * Stop the server.
+     */
+    @AfterClass
+    public static void tearDownClass() {
+        server.stop(0);
+    }
+
+    /**
+     * Test of a ranking request with inline texts.
+     * <p>
+     * @throws IOException The request fails
+     */
+    @Test
+    public void testRankText() throws IOException {
+        System.out.println("test rank text");
+        String body = "original=" + URLEncoder.encode("GG FF HH ZZ UU II",
+                "UTF-8") + "&comparative=" + URLEncoder.encode(
+                        "GG HH FF ZZ UU été", "UTF-8");
+        assertEquals("{\"ranker\":\"SimpleRanker\",\"rate\":"
+                + 3.0 / 6 * 100 + ",\"errors\":3,\"words\":6}",
+                post(body, 200));
+        assertEquals("{\"ranker\":\"WordErrorRanker\",\"rate\":"
+                + 3.0 / 6 * 100 + ",\"errors\":3,\"words\":6}",
+                post(body + "&ranker=wer", 200));
+        //Stopped at the first error
+        assertEquals("{\"ranker\":\"SimpleRanker\",\"rate\":"
+                + 1.0 / 6 * 100 + ",\"errors\":1,\"words\":6,"
+                + "\"errorsMax\":9,\"passed\":false}",
+                post(body + "&maxError=10", 200));
+    }
+
+    /**
+     * Test of wrong ranking requests.
+     * <p>
+     * @throws IOException The request fails
+     */
+    @Test
+    public void testRankErrors() throws IOException {
+        System.out.println("test rank errors");
+        assertEquals("{\"error\":\"Missing parameter comparative or "
+                + "comparativeFile\"}", post("original=a", 400));
+        assertEquals("{\"error\":\"Unknown ranker x\"}",
+                post("original=a&comparative=a&ranker=x", 400));
+        assertEquals("{\"error\":\"File not found /no/such/file\"}",
+                post("originalFile=%2Fno%2Fsuch%2Ffile&comparative=a", 404));
+        assertTrue(post("original=a%zz&comparative=a", 400).startsWith(
+                "{\"error\":\"Malformed parameter original: "));
+    }
+
+    /**
+     * Test of a request body larger than the maximum body size.
+     * <p>
+     * @throws IOException The request fails
+     */
+    @Test
+    public void testMaxBodySize() throws IOException {
+        System.out.println("test max body size");
+        server.setMaxBodySize(30);
+        try {
+            assertEquals("{\"error\":\"Body larger than 30 bytes\"}",
+                    post("original=GG+FF+HH&comparative=GG+FF", 413));
+            assertEquals("{\"ranker\":\"SimpleRanker\",\"rate\":0.0,"
+                    + "\"errors\":0,\"words\":1}",
+                    post("original=a&comparative=a", 200));
+        } finally {
+            server.setMaxBodySize(RankingServer.MAX_BODY_SIZE);
+        }
+    }
+
+    /**
+     * Send a form to the server and return the response.
+     * <p>
+     * @param body Form encoded parameters
+     * @param status Expected status
+     * @return Response body
+     * @throws IOException The request fails
+     */
+    private static String post(String body, int status) throws IOException {
+        HttpURLConnection c = (HttpURLConnection) new URL("http://localhost:"
+                + server.getPort() + "/rank").openConnection();
+        c.setRequestMethod("POST");
+        c.setDoOutput(true);
+        try (OutputStream out = c.getOutputStream()) {
+            out.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        assertEquals(status, c.getResponseCode());
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        try (InputStream in = status < 400 ? c.getInputStream()
+                : c.getErrorStream()) {
+            byte[] buffer = new byte[1024];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                response.write(buffer, 0, n);
+            }
+        }
+        return new String(response.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
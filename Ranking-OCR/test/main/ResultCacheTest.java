@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package main;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import ranking.RankResult;
+import ranking.RankerDescriptor;
+import ranking.RankerRegistry;
+import ranking.SimpleRanker;
+
+/**
+ * Test class for ResultCache.
+ * <p>
+ * @author Nils Ryter
+ */
+public class ResultCacheTest {
+
+    /**
+     * Test of the results of duplicated pairs, kept in memory and in a file.
+     * <p>
+     * @throws IOException A temporary file can not be used
+     */
+    @Test
+    public void testResultCache() throws IOException {
+        System.out.println("test result cache");
+        Path dir = Files.createTempDirectory("results");
+        File o = write(dir, "o.txt", "GG FF HH ZZ UU II");
+        File c1 = write(dir, "c1.txt", "GG HH FF ZZ UU II");
+        File c2 = write(dir, "c2.txt", "GG HH FF ZZ UU II");
+        File c3 = write(dir, "c3.txt", "GG FF HH ZZ UU");
+        Path file = dir.resolve("results.tsv");
+        Charset cs = StandardCharsets.UTF_8;
+        RankerDescriptor simple = RankerRegistry.find("simple");
+        try {
+            ResultCache cache = new ResultCache(10, cs, file);
+            String key = cache.key(o, c1, simple);
+            assertNull(cache.get(key));
+            cache.put(key, new RankResult(2, 6));
+            //Same bytes, same key
+            assertEquals(key, cache.key(o, c2, simple));
+            assertEquals(2, cache.get(cache.key(o, c2, simple)).getNbError());
+            assertNull(cache.get(cache.key(o, c3, simple)));
+            assertNull(cache.get(cache.key(o, c1,
+                    RankerRegistry.find("wer"))));
+            assertEquals(1, cache.getNbHit());
+            assertEquals(3, cache.getNbMiss());
+            cache.close();
+            //Next run
+            cache = new ResultCache(10, cs, file);
+            RankResult r = cache.get(cache.key(o, c2, simple));
+            assertEquals(2, r.getNbError());
+            assertEquals(6, r.getNbWord());
+            RankerDescriptor newer = new RankerDescriptor("SimpleRanker", 2,
+                    RankerDescriptor.Metric.WORD_ALIGNMENT, "",
+                    SimpleRanker::new);
+            assertNull(cache.get(cache.key(o, c2, newer)));
+            cache.close();
+        } finally {
+            for (String s : new String[]{"o.txt", "c1.txt", "c2.txt", "c3.txt",
+                "results.tsv"}) {
+                Files.deleteIfExists(dir.resolve(s));
+            }
+            Files.delete(dir);
+        }
+    }
+
+    /**
+     * Test of the eviction of the least recently used results.
+     * <p>
+     * @throws IOException Never, there is no file
+     */
+    @Test
+    public void testResultCacheEviction() throws IOException {
+        System.out.println("test result cache eviction");
+        ResultCache cache = new ResultCache(2, StandardCharsets.UTF_8, null);
+        cache.put("a", new RankResult(1, 1));
+        cache.put("b", new RankResult(2, 2));
+        assertNotNull(cache.get("a"));
+        cache.put("c", new RankResult(3, 3));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("a"));
+        assertNotNull(cache.get("c"));
+    }
+
+    /**
+     * Write a document file.
+     * <p>
+     * @param dir Directory
+     * @param name File name
+     * @param text Text of the document
+     * @return File
+     * @throws IOException The file can not be written
+     */
+    private static File write(Path dir, String name, String text)
+            throws IOException {
+        return Files.write(dir.resolve(name), Collections.singletonList(text),
+                StandardCharsets.UTF_8).toFile();
+    }
+}
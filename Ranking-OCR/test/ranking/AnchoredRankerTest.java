@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ranking;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test class for AnchoredRanker.
+ * <p>
+ * @author Nils Ryter
+ */
+public class AnchoredRankerTest {
+
+    /**
+     * Build a document of repeated words with a unique word every 50 words,
+     * and a copy of it with errors between the unique words.
+     * <p>
+     * @return Original and comparative documents
+     */
+    private static String[] documents() {
+        Random random = new Random(42);
+        StringBuilder original = new StringBuilder();
+        StringBuilder comparative = new StringBuilder();
+        for (int i = 0; i < 20000; ++i) {
+            String w = i % 50 == 0 ? "mot" + i
+                    : "rep" + random.nextInt(1000);
+            original.append(w).append(' ');
+            int r = i % 50 == 0 ? 99 : random.nextInt(100);
+            if (r == 0) {
+                //Deleted word
+            } else if (r == 1) {
+                comparative.append("faux ");
+            } else if (r == 2) {
+                comparative.append(w).append(" ajout ");
+            } else {
+                comparative.append(w).append(' ');
+            }
+        }
+        return new String[]{original.toString(), comparative.toString()};
+    }
+
+    /**
+     * Test of anchors method, of class AnchoredRanker.
+     */
+    @Test
+    public void testAnchors() {
+        System.out.println("test anchors");
+        PreparedDocument original = new PreparedDocument("a b c d x x");
+        int[][] anchors = AnchoredRanker.anchors(original,
+                original.lookup("d b c a x y"));
+        assertArrayEquals(new int[]{1, 2}, anchors[0]);
+        assertArrayEquals(new int[]{1, 2}, anchors[1]);
+    }
+
+    /**
+     * Test of rank method, of class AnchoredRanker, with the segments
+     * compared by SimpleRanker.
+     */
+    @Test
+    public void testRankSimple() {
+        System.out.println("test rank simple");
+        String[] d = documents();
+        AnchoredRanker instance = new AnchoredRanker(new SimpleRanker(),
+                new ForkJoinPool(4), 500);
+        PreparedDocument original = instance.prepare(d[0]);
+        int[] ids = original.lookup(d[1]);
+        int[][] cuts = instance.split(original, ids,
+                AnchoredRanker.anchors(original, ids), 16);
+        assertEquals(17, cuts[0].length);
+        RankResult expResult = new SimpleRanker().rank(d[0], d[1]);
+        RankResult result = instance.rank(original, d[1]);
+        assertEquals(expResult.getNbError(), result.getNbError());
+        assertEquals(expResult.getNbWord(), result.getNbWord());
+    }
+
+    /**
+     * Test of rank method, of class AnchoredRanker, with the segments
+     * compared by WordErrorRanker.
+     */
+    @Test
+    public void testRankWordError() {
+        System.out.println("test rank word error");
+        String[] d = documents();
+        AnchoredRanker instance = new AnchoredRanker(new WordErrorRanker(),
+                new ForkJoinPool(4), 500);
+        RankResult expResult = new WordErrorRanker().rank(d[0], d[1]);
+        RankResult result = instance.rank(d[0], d[1]);
+        assertEquals(expResult.getNbError(), result.getNbError());
+        assertEquals(expResult.getNbWord(), result.getNbWord());
+    }
+
+    /**
+     * Test of rank method, of class AnchoredRanker, with a maximum error
+     * rate.
+     */
+    @Test
+    public void testRankMaxError() {
+        System.out.println("test rank max error");
+        String[] d = documents();
+        AnchoredRanker instance = new AnchoredRanker(new WordErrorRanker(),
+                new ForkJoinPool(1), 500);
+        PreparedDocument original = instance.prepare(d[0]);
+        RankResult exact = instance.rank(original, d[1]);
+        double[] maxRates = {0, 0.5, 1, 2, 3, 5, 50, 200};
+        for (double maxRate : maxRates) {
+            RankResult result = instance.rank(original, d[1], maxRate);
+            assertEquals(exact.isPassed(maxRate), result.isPassed(maxRate));
+            assertTrue(result.getNbError() <= exact.getNbError());
+            assertTrue(result.getNbErrorMax() >= exact.getNbError());
+            assertEquals(exact.getNbWord(), result.getNbWord());
+        }
+        //Failed after the first segments
+        assertFalse(instance.rank(original, d[1], 0).isExact());
+    }
+}
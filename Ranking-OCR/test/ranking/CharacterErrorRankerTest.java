@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ranking;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test class for CharacterErrorRanker.
+ * <p>
+ * @author Nils Ryter
+ */
+public class CharacterErrorRankerTest {
+
+    /**
+     * Compute the Levenshtein distance with the full dynamic programming
+     * matrix.
+     * <p>
+     * @param a First code point sequence
+     * @param b Second code point sequence
+     * @return Distance
+     */
+    private static int levenshtein(int[] a, int[] b) {
+        int[] row = new int[b.length + 1];
+        for (int j = 0; j <= b.length; ++j) {
+            row[j] = j;
+        }
+        for (int i = 1; i <= a.length; ++i) {
+            int diag = row[0];
+            row[0] = i;
+            for (int j = 1; j <= b.length; ++j) {
+                int up = row[j];
+                row[j] = Math.min(Math.min(row[j] + 1, row[j - 1] + 1),
+                        diag + (a[i - 1] == b[j - 1] ? 0 : 1));
+                diag = up;
+            }
+        }
+        return row[b.length];
+    }
+
+    /**
+     * Test of class CharacterErrorRanker.
+     */
+    @Test
+    public void testCharacterErrorRanker1() {
+        System.out.println("test 1");
+        String original = "Hello, dear i want to check your hand.";
+        String comparative = "Hello,  degr i want to chéck youm hand!";
+        CharacterErrorRanker instance = new CharacterErrorRanker();
+        //"hello dear i want to check your hand" has 36 code points
+        double expResult = 2.f / 36 * 100;
+        double result = instance.compare(original, comparative);
+        assertEquals(expResult, result, 1e-3);
+        result = instance.compare(instance.prepare(original), comparative);
+        assertEquals(expResult, result, 1e-3);
+    }
+
+    /**
+     * Test of class CharacterErrorRanker with empty documents.
+     */
+    @Test
+    public void testCharacterErrorRanker2() {
+        System.out.println("test 2");
+        CharacterErrorRanker instance = new CharacterErrorRanker();
+        assertEquals(0, instance.compare("", ""), 1e-9);
+        assertEquals(500, instance.compare("", "ab cd"), 1e-9);
+        assertEquals(100, instance.compare("ab cd", "..."), 1e-9);
+    }
+
+    /**
+     * Test of class CharacterErrorRanker against the full matrix, on
+     * documents of many blocks and code points out of the original.
+     */
+    @Test
+    public void testCharacterErrorRanker3() {
+        System.out.println("test 3");
+        Random r = new Random(5);
+        int[] symbols = {'a', 'b', 'c', ' ', 0x1D400, 0x4E2D};
+        for (int t = 0; t < 200; ++t) {
+            int[] a = new int[r.nextInt(600)];
+            int[] b = new int[a.length * 2];
+            int n = 0;
+            for (int i = 0; i < a.length; ++i) {
+                a[i] = symbols[r.nextInt(symbols.length)];
+                int k = r.nextInt(10);
+                if (k == 1) {
+                    b[n++] = symbols[r.nextInt(symbols.length)];
+                }
+                if (k > 0) {
+                    b[n++] = k == 2 ? 'z' : a[i];
+                }
+            }
+            b = Arrays.copyOf(b, n);
+            assertEquals(levenshtein(a, b),
+                    CharacterErrorRanker.distance(a, b));
+        }
+    }
+
+    /**
+     * Test of class CharacterErrorRanker with a maximum error rate.
+     */
+    @Test
+    public void testCharacterErrorRankerMaxError() {
+        System.out.println("test max error");
+        Random r = new Random(3);
+        String[] words = {"GG", "FF", "HH", "ZZ", "UU", "II", "été", "v"};
+        CharacterErrorRanker instance = new CharacterErrorRanker();
+        double[] maxRates = {0, 1, 5, 10, 20, 50, 100, 200};
+        for (int i = 0; i < 50; ++i) {
+            StringBuilder original = new StringBuilder();
+            StringBuilder comparative = new StringBuilder();
+            int noise = r.nextInt(20) + 1;
+            for (int j = r.nextInt(300); j >= 0; --j) {
+                String w = words[r.nextInt(words.length)];
+                original.append(w).append(' ');
+                int k = r.nextInt(noise);
+                if (k == 1) {
+                    comparative.append(words[r.nextInt(words.length)])
+                            .append(' ');
+                }
+                if (k > 0 || noise == 1) {
+                    comparative.append(k == 2 ? words[r.nextInt(words.length)]
+                            : w).append(' ');
+                }
+            }
+            String o = original.toString();
+            String c = comparative.toString();
+            RankResult exact = instance.rank(o, c);
+            for (double maxRate : maxRates) {
+                RankResult result = instance.rank(o, c, maxRate);
+                assertEquals(exact.isPassed(maxRate), result.isPassed(maxRate));
+                assertTrue(result.getNbError() <= exact.getNbError());
+                assertTrue(result.getNbErrorMax() >= exact.getNbError());
+                assertEquals(exact.getNbWord(), result.getNbWord());
+            }
+        }
+    }
+
+    /**
+     * Test of class CharacterErrorRanker, with a prepared original compared
+     * to several documents and normalized once.
+     */
+    @Test
+    public void testCharacterErrorRankerPrepared() {
+        System.out.println("test prepared");
+        CharacterErrorRanker instance = new CharacterErrorRanker();
+        String original = "Le cœur a ses raisons que la raison ignore";
+        PreparedDocument d = instance.prepare(original);
+        assertNull(d.getCharacters());
+        String[] comparatives = {"Le coeur a ses raisons", original,
+            "Le cœur a ces raisons que la raison ignore"};
+        for (String c : comparatives) {
+            assertEquals(instance.rank(original, c).getNbError(),
+                    instance.rank(d, c).getNbError());
+        }
+        CharacterErrorRanker.Normalized n = d.getCharacters();
+        assertNotNull(n);
+        instance.rank(d, "Le", 10);
+        assertSame(n, d.getCharacters());
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ranking;
+
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test class for PatienceRanker.
+ * <p>
+ * @author Nils Ryter
+ */
+public class PatienceRankerTest {
+
+    /**
+     * Build a column of random words.
+     * <p>
+     * @param random Random words generator
+     * @param prefix Prefix of the words of the column
+     * @param nbWord Number of words
+     * @return Text of the column
+     */
+    private static String column(Random random, String prefix, int nbWord) {
+        StringBuilder s = new StringBuilder();
+        for (int i = 0; i < nbWord; ++i) {
+            s.append(prefix).append(random.nextInt(nbWord * 4)).append(' ');
+        }
+        return s.toString();
+    }
+
+    /**
+     * Test of class PatienceRanker.
+     */
+    @Test
+    public void testPatienceRanker1() {
+        System.out.println("test 1");
+        String original = "Hello, dear i want to check your hand.\n But "
+                + "warning! The *** is not for you";
+        String comparative = "Hello, degr want to check youm hand.\n But "
+                + "warning| The *** is not for you";
+        PatienceRanker instance = new PatienceRanker();
+        double expResult = 3.f / 15 * 100;
+        double result = instance.compare(original, comparative);
+        assertEquals(expResult, result, 1e-3);
+        assertEquals(0, instance.compare(original, original), 1e-9);
+    }
+
+    /**
+     * Test of class PatienceRanker, with the columns of a page swapped.
+     */
+    @Test
+    public void testPatienceRankerSwapped() {
+        System.out.println("test swapped");
+        Random random = new Random(7);
+        String left = column(random, "a", 300);
+        String right = column(random, "b", 300);
+        String middle = column(random, "c", 200);
+        PatienceRanker instance = new PatienceRanker();
+        RankResult result = instance.rank(left + right, right + left);
+        assertEquals(1, result.getNbError());
+        assertEquals(600, result.getNbWord());
+        result = instance.rank(left + middle + right, right + middle + left);
+        assertEquals(2, result.getNbError());
+        assertTrue(new SimpleRanker().rank(left + right, right + left)
+                .getNbError() > 300);
+    }
+
+    /**
+     * Test of increasing method, of class PatienceRanker.
+     */
+    @Test
+    public void testIncreasing() {
+        System.out.println("test increasing");
+        int[] values = {3, 1, 4, 1, 5, 9, 2, 6, 5, 3, 5, 8, 9, 7, 9};
+        int[] result = PatienceRanker.increasing(values, values.length);
+        assertEquals(6, result.length);
+        for (int k = 1; k < result.length; ++k) {
+            assertTrue(result[k - 1] < result[k]);
+            assertTrue(values[result[k - 1]] < values[result[k]]);
+        }
+        assertEquals(0, PatienceRanker.increasing(values, 0).length);
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ranking;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test class for RankerRegistry.
+ * <p>
+ * @author Nils Ryter
+ */
+public class RankerRegistryTest {
+
+    /**
+     * Test of find method, by name and alias.
+     */
+    @Test
+    public void testFind() {
+        System.out.println("test 1");
+        RankerDescriptor d = RankerRegistry.find("SimpleRanker");
+        assertEquals("SimpleRanker", d.getName());
+        assertSame(d, RankerRegistry.find("simpleranker"));
+        assertSame(d, RankerRegistry.find("SIMPLE"));
+        assertEquals("WordErrorRanker", RankerRegistry.find("wer").getName());
+        assertEquals(RankerDescriptor.Metric.CHARACTER_ERROR_RATE,
+                RankerRegistry.find("cer").getMetric());
+        assertNull(RankerRegistry.find("Tokenizer"));
+    }
+
+    /**
+     * Test of newRanker method, a new ranker is created at each call.
+     */
+    @Test
+    public void testNewRanker() {
+        System.out.println("test 2");
+        for (RankerDescriptor d : RankerRegistry.getRankers()) {
+            Ranker r = d.newRanker();
+            assertEquals(d.getName(), r.getClass().getSimpleName());
+            assertNotSame(r, d.newRanker());
+            assertEquals(0, r.compare("a b c", "a b c"), 1e-9);
+        }
+    }
+}
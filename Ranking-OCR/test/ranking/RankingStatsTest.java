@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ranking;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test class for RankingStats.
+ * <p>
+ * @author Nils Ryter
+ */
+public class RankingStatsTest {
+
+    /**
+     * Test of the phase histograms.
+     */
+    @Test
+    public void testPhases() {
+        System.out.println("test 1");
+        RankingStats instance = RankingStats.getInstance();
+        instance.reset();
+        for (int i = 1; i <= 1000; ++i) {
+            instance.record(RankingStats.Phase.READ, i * 1000000L);
+        }
+        RankingStats.PhaseStats read = instance.getPhases().get(
+                RankingStats.Phase.READ.ordinal());
+        assertEquals("READ", read.getPhase());
+        assertEquals(1000, read.getCount());
+        assertEquals(500500, read.getTotalMillis(), 1e-6);
+        assertEquals(1000, read.getMaxMillis(), 1e-6);
+        //The percentiles are known within 25%
+        assertEquals(500, read.getP50Millis(), 125);
+        assertEquals(950, read.getP95Millis(), 240);
+        assertTrue(read.getP99Millis() <= read.getMaxMillis());
+        instance.reset();
+        assertEquals(0, instance.getPhases().get(
+                RankingStats.Phase.READ.ordinal()).getCount());
+    }
+
+    /**
+     * Test of the sync counts of SimpleRanker.
+     */
+    @Test
+    public void testSyncs() {
+        System.out.println("test 2");
+        RankingStats instance = RankingStats.getInstance();
+        instance.reset();
+        new SimpleRanker().rank("GG FF HH ZZ UU II", "GG HH FF ZZ UU II");
+        long total = 0;
+        for (long n : instance.getSyncCounts().values()) {
+            total += n;
+        }
+        assertTrue(total > 0);
+        assertEquals(1, instance.getPhases().get(
+                RankingStats.Phase.ALIGN.ordinal()).getCount());
+    }
+}
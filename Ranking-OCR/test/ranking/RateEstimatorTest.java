@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ranking;
+
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test class for RateEstimator.
+ * <p>
+ * @author Nils Ryter
+ */
+public class RateEstimatorTest {
+
+    /**
+     * Test of the estimate of a small sample.
+     */
+    @Test
+    public void testRateEstimator1() {
+        System.out.println("test 1");
+        RateEstimator instance = new RateEstimator(1000);
+        instance.add(new RankResult(10, 100));
+        instance.add(new RankResult(30, 100));
+        instance.add(new RankResult(5, 50));
+        assertEquals(45.0 / 250 * 100, instance.getRate(), 1e-9);
+        //Residuals 10 - 18, 30 - 18, 5 - 9: 64 + 144 + 16
+        double variance = (1 - 3.0 / 1000) * 224 / 2 / (3 * 250.0 / 3
+                * 250 / 3);
+        assertEquals(1.96 * Math.sqrt(variance) * 100,
+                instance.getMargin(1.96), 1e-9);
+    }
+
+    /**
+     * Test of the estimate of the whole corpus: the rate is exact.
+     */
+    @Test
+    public void testRateEstimator2() {
+        System.out.println("test 2");
+        RateEstimator instance = new RateEstimator(2);
+        instance.add(new RankResult(10, 100));
+        instance.add(new RankResult(30, 100));
+        assertEquals(20, instance.getRate(), 1e-9);
+        assertEquals(0, instance.getMargin(1.96), 1e-9);
+    }
+
+    /**
+     * Test of the coverage of the 95% confidence interval on random samples.
+     */
+    @Test
+    public void testRateEstimator3() {
+        System.out.println("test 3");
+        Random r = new Random(5);
+        int n = 10000;
+        long[] errors = new long[n];
+        long[] words = new long[n];
+        long sumError = 0;
+        long sumWord = 0;
+        for (int i = 0; i < n; ++i) {
+            words[i] = 100 + r.nextInt(2000);
+            errors[i] = (long) (words[i] * r.nextDouble() * r.nextDouble());
+            sumError += errors[i];
+            sumWord += words[i];
+        }
+        double rate = (double) sumError / sumWord * 100;
+        int covered = 0;
+        for (int t = 0; t < 200; ++t) {
+            RateEstimator instance = new RateEstimator(n);
+            for (int i = 0; i < 200; ++i) {
+                int k = r.nextInt(n);
+                instance.add(new RankResult(errors[k], words[k]));
+            }
+            if (Math.abs(instance.getRate() - rate)
+                    <= instance.getMargin(1.96)) {
+                ++covered;
+            }
+        }
+        assertTrue(covered >= 180);
+    }
+}
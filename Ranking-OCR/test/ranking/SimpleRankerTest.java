@@ -16,6 +16,10 @@
  */
 package ranking;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Test;
 import static org.junit.Assert.*;
 
@@ -38,9 +42,11 @@ public class SimpleRankerTest {
                 + "warning| The *** is not for you";
         SimpleRanker instance = new SimpleRanker();
         double expResult = 3.f / 15 * 100;
-        double result = instance.compare(original, comparative);
-        assertEquals(expResult, result, 1e-3);
-        System.out.println("Errors: " + instance.getNbError());
+        RankResult result = instance.rank(original, comparative);
+        assertEquals(expResult, result.getRate(), 1e-3);
+        assertEquals(3, result.getNbError());
+        assertEquals(15, result.getNbWord());
+        System.out.println("Errors: " + result.getNbError());
     }
 
     /**
@@ -53,9 +59,9 @@ public class SimpleRankerTest {
         String comparative = "GG v vv vv v  vv FF HH ZZ UU II";
         SimpleRanker instance = new SimpleRanker();
         double expResult = 5.f / 6 * 100;
-        double result = instance.compare(original, comparative);
-        assertEquals(expResult, result, 1e-3);
-        System.out.println("Errors: " + instance.getNbError());
+        RankResult result = instance.rank(original, comparative);
+        assertEquals(expResult, result.getRate(), 1e-3);
+        System.out.println("Errors: " + result.getNbError());
     }
 
     /**
@@ -68,9 +74,9 @@ public class SimpleRankerTest {
         String comparative = "GG v ZZ v v FF HH ZZ UU II";
         SimpleRanker instance = new SimpleRanker();
         double expResult = 4.f / 6 * 100;
-        double result = instance.compare(original, comparative);
-        assertEquals(expResult, result, 1e-5);
-        System.out.println("Errors: " + instance.getNbError());
+        RankResult result = instance.rank(original, comparative);
+        assertEquals(expResult, result.getRate(), 1e-5);
+        System.out.println("Errors: " + result.getNbError());
     }
 
     /**
@@ -83,9 +89,9 @@ public class SimpleRankerTest {
         String comparative = "GG v ZZ v v v v v FF ZZ UU II";
         SimpleRanker instance = new SimpleRanker();
         double expResult = 11.f / 6 * 100;
-        double result = instance.compare(original, comparative);
-        assertEquals(expResult, result, 1e-3);
-        System.out.println("Errors: " + instance.getNbError());
+        RankResult result = instance.rank(original, comparative);
+        assertEquals(expResult, result.getRate(), 1e-3);
+        System.out.println("Errors: " + result.getNbError());
     }
 
     /**
@@ -98,8 +104,138 @@ public class SimpleRankerTest {
         String comparative = "GG HH FF ZZ UU II";
         SimpleRanker instance = new SimpleRanker();
         double expResult = 2.f / 6 * 100;
-        double result = instance.compare(original, comparative);
-        assertEquals(expResult, result, 1e-3);
-        System.out.println("Errors: " + instance.getNbError());
+        RankResult result = instance.rank(original, comparative);
+        assertEquals(expResult, result.getRate(), 1e-3);
+        System.out.println("Errors: " + result.getNbError());
+    }
+
+    /**
+     * Test of class SimpleRanker with a prepared original.
+     */
+    @Test
+    public void testSimpleRankerPrepared() {
+        System.out.println("test prepared");
+        String original = "GG FF HH ZZ UU II";
+        SimpleRanker instance = new SimpleRanker();
+        PreparedDocument prepared = instance.prepare(original);
+        assertEquals(6, prepared.getNbWord());
+        String[] comparatives = {"GG v vv vv v  vv FF HH ZZ UU II",
+            "GG v ZZ v v FF HH ZZ UU II", "GG HH FF ZZ UU II"};
+        for (String comparative : comparatives) {
+            double expResult = new SimpleRanker().compare(original,
+                    comparative);
+            double result = instance.compare(prepared, comparative);
+            assertEquals(expResult, result, 1e-9);
+        }
+    }
+
+    /**
+     * Test of class SimpleRanker with documents read from readers.
+     * <p>
+     * @throws IOException Never, the documents are in memory
+     */
+    @Test
+    public void testSimpleRankerStream() throws IOException {
+        System.out.println("test stream");
+        //Documents larger than the reader chunks, with errors everywhere
+        Random r = new Random(1);
+        String[] words = {"GG", "FF", "HH", "ZZ", "UU", "II", "été", "v"};
+        StringBuilder original = new StringBuilder();
+        StringBuilder comparative = new StringBuilder();
+        for (int i = 0; i < 20000; ++i) {
+            String w = words[r.nextInt(words.length)];
+            original.append(w).append(' ');
+            int k = r.nextInt(10);
+            if (k == 1) {
+                comparative.append(words[r.nextInt(words.length)]).append(' ');
+            }
+            if (k > 0) {
+                comparative.append(k == 2 ? words[r.nextInt(words.length)] : w)
+                        .append(", ");
+            }
+        }
+        SimpleRanker instance = new SimpleRanker();
+        double expResult = instance.compare(original.toString(),
+                comparative.toString());
+        double result = instance.compare(new StringReader(
+                original.toString()), new StringReader(comparative.toString()));
+        assertEquals(expResult, result, 1e-9);
+    }
+
+    /**
+     * Test of class SimpleRanker with a single instance shared by several
+     * threads.
+     * <p>
+     * @throws InterruptedException The test is interrupted
+     */
+    @Test
+    public void testSimpleRankerShared() throws InterruptedException {
+        System.out.println("test shared");
+        String original = "GG FF HH ZZ UU II";
+        String[] comparatives = {"GG v vv vv v  vv FF HH ZZ UU II",
+            "GG v ZZ v v FF HH ZZ UU II", "GG v ZZ v v v v v FF ZZ UU II",
+            "GG HH FF ZZ UU II"};
+        long[] expResults = {5, 4, 11, 2};
+        Ranker instance = RankerRegistry.find("SimpleRanker").getRanker();
+        assertSame(instance, RankerRegistry.find("simple").getRanker());
+        AtomicInteger failures = new AtomicInteger();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; ++t) {
+            int offset = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10000; ++i) {
+                    int k = (i + offset) % comparatives.length;
+                    if (instance.rank(original, comparatives[k]).getNbError()
+                            != expResults[k]) {
+                        failures.incrementAndGet();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertEquals(0, failures.get());
+    }
+
+    /**
+     * Test of class SimpleRanker with a maximum error rate.
+     */
+    @Test
+    public void testSimpleRankerMaxError() {
+        System.out.println("test max error");
+        Random r = new Random(3);
+        String[] words = {"GG", "FF", "HH", "ZZ", "UU", "II", "été", "v"};
+        SimpleRanker instance = new SimpleRanker();
+        double[] maxRates = {0, 1, 5, 10, 20, 50, 100, 200};
+        for (int i = 0; i < 50; ++i) {
+            StringBuilder original = new StringBuilder();
+            StringBuilder comparative = new StringBuilder();
+            int noise = r.nextInt(20) + 1;
+            for (int j = r.nextInt(300); j >= 0; --j) {
+                String w = words[r.nextInt(words.length)];
+                original.append(w).append(' ');
+                int k = r.nextInt(noise);
+                if (k == 1) {
+                    comparative.append(words[r.nextInt(words.length)])
+                            .append(' ');
+                }
+                if (k > 0 || noise == 1) {
+                    comparative.append(k == 2 ? words[r.nextInt(words.length)]
+                            : w).append(' ');
+                }
+            }
+            String o = original.toString();
+            String c = comparative.toString();
+            RankResult exact = instance.rank(o, c);
+            for (double maxRate : maxRates) {
+                RankResult result = instance.rank(o, c, maxRate);
+                assertEquals(exact.isPassed(maxRate), result.isPassed(maxRate));
+                assertTrue(result.getNbError() <= exact.getNbError());
+                assertTrue(result.getNbErrorMax() >= exact.getNbError());
+                assertEquals(exact.getNbWord(), result.getNbWord());
+            }
+        }
     }
 }
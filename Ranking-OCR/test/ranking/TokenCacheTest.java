@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ranking;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test class for TokenCache.
+ * <p>
+ * @author Nils Ryter
+ */
+public class TokenCacheTest {
+
+    /**
+     * Test of a document loaded from the cache.
+     * <p>
+     * @throws IOException The cache directory can not be used
+     */
+    @Test
+    public void testTokenCache() throws IOException {
+        System.out.println("test token cache");
+        Path dir = Files.createTempDirectory("tokens");
+        try {
+            String text = "GG FF HH, été ZZ GG UU II été";
+            PreparedDocument expected = new PreparedDocument(text);
+            PreparedDocument result = null;
+            for (int i = 0; i < 3; ++i) {
+                //A new cache each time, as in a new run
+                TokenCache cache = new TokenCache(dir, 1 << 20);
+                result = cache.prepare(text);
+                assertEquals(i == 0 ? 0 : 1, cache.getNbHit());
+                assertEquals(i == 0 ? 1 : 0, cache.getNbMiss());
+            }
+            assertEquals(expected.getNbWord(), result.getNbWord());
+            assertEquals(expected.getNbDifferentWord(),
+                    result.getNbDifferentWord());
+            for (int i = 0; i < expected.getNbWord(); ++i) {
+                assertEquals(expected.getWord(expected.getId(i)),
+                        result.getWord(result.getId(i)));
+            }
+            String comparative = "GG HH FF ete ZZ UU II";
+            assertEquals(new SimpleRanker().rank(expected, comparative)
+                    .getNbError(), new SimpleRanker().rank(result, comparative)
+                    .getNbError());
+        } finally {
+            delete(dir);
+        }
+    }
+
+    /**
+     * Test of the eviction of the least recently used documents.
+     * <p>
+     * @throws IOException The cache directory can not be used
+     */
+    @Test
+    public void testTokenCacheEviction() throws IOException {
+        System.out.println("test token cache eviction");
+        Path dir = Files.createTempDirectory("tokens");
+        try {
+            //Room for a single document of 10 words
+            TokenCache cache = new TokenCache(dir, 150);
+            cache.prepare("a b c d e f g h i j");
+            cache.prepare("k l m n o p q r s t");
+            cache.prepare("u v w x y z a b c d");
+            cache.prepare("u v w x y z a b c d");
+            assertEquals(1, cache.getNbHit());
+            cache.prepare("a b c d e f g h i j");
+            assertEquals(1, cache.getNbHit());
+            assertEquals(4, cache.getNbMiss());
+        } finally {
+            delete(dir);
+        }
+    }
+
+    /**
+     * Delete a directory and its files.
+     * <p>
+     * @param dir Directory
+     * @throws IOException A file can not be deleted
+     */
+    private static void delete(Path dir) throws IOException {
+        try (DirectoryStream<Path> s = Files.newDirectoryStream(dir)) {
+            for (Path p : s) {
+                Files.delete(p);
+            }
+        }
+        Files.delete(dir);
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ranking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test class for Tokenizer.
+ * <p>
+ * @author Nils Ryter
+ */
+public class TokenizerTest {
+
+    /**
+     * Split a text with a new tokenizer.
+     * <p>
+     * @param text Text to split
+     * @return Words of the text
+     */
+    private static List<String> split(String text) {
+        List<String> words = new ArrayList<>();
+        Tokenizer instance = new Tokenizer(text);
+        while (instance.next()) {
+            words.add(instance.token().toString());
+        }
+        return words;
+    }
+
+    /**
+     * Test of separators.
+     */
+    @Test
+    public void testTokenizer1() {
+        System.out.println("test 1");
+        assertEquals(Arrays.asList("Hello", "dear", "i", "want"),
+                split("  \"Hello, dear i\n want!!"));
+        assertTrue(split(" *** ,\n").isEmpty());
+    }
+
+    /**
+     * Test of accented charters, precomposed and decomposed.
+     */
+    @Test
+    public void testTokenizer2() {
+        System.out.println("test 2");
+        assertEquals(Arrays.asList("La", "Cigale", "ayant", "chante",
+                "Tout", "l", "ete"), split("La Cigale, ayant chanté\n"
+                        + "Tout l'été,"));
+    }
+
+    /**
+     * Test of non-Latin scripts.
+     */
+    @Test
+    public void testTokenizer3() {
+        System.out.println("test 3");
+        assertEquals(Arrays.asList("αθηνα",
+                "Москва", "東京",
+                "𝐀b"), split("αθήνα, "
+                        + "Москва 東京."
+                        + " 𝐀b"));
+    }
+
+    /**
+     * Test of the word positions in the text.
+     */
+    @Test
+    public void testTokenizer4() {
+        System.out.println("test 4");
+        Tokenizer instance = new Tokenizer("  ab, cé");
+        assertTrue(instance.next());
+        assertEquals(2, instance.getStart());
+        assertEquals(4, instance.getEnd());
+        assertTrue(instance.next());
+        assertEquals(6, instance.getStart());
+        assertEquals(8, instance.getEnd());
+        assertFalse(instance.next());
+    }
+}
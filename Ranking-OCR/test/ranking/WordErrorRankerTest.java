@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2014 Nils Ryter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ranking;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test class for WordErrorRanker.
+ * <p>
+ * @author Nils Ryter
+ */
+public class WordErrorRankerTest {
+
+    /**
+     * Compute the Levenshtein distance with the full dynamic programming
+     * matrix.
+     * <p>
+     * @param a First word sequence
+     * @param b Second word sequence
+     * @return Distance
+     */
+    private static int levenshtein(String[] a, String[] b) {
+        int[] row = new int[b.length + 1];
+        for (int j = 0; j <= b.length; ++j) {
+            row[j] = j;
+        }
+        for (int i = 1; i <= a.length; ++i) {
+            int diag = row[0];
+            row[0] = i;
+            for (int j = 1; j <= b.length; ++j) {
+                int up = row[j];
+                row[j] = Math.min(Math.min(row[j] + 1, row[j - 1] + 1),
+                        diag + (a[i - 1].equals(b[j - 1]) ? 0 : 1));
+                diag = up;
+            }
+        }
+        return row[b.length];
+    }
+
+    /**
+     * Test of class WordErrorRanker.
+     */
+    @Test
+    public void testWordErrorRanker1() {
+        System.out.println("test 1");
+        String original = "Hello, dear i want to check your hand.\n But "
+                + "warning! The *** is not for you";
+        String comparative = "Hello, degr want to check youm hand.\n But "
+                + "warning| The *** is not for you";
+        WordErrorRanker instance = new WordErrorRanker();
+        double expResult = 3.f / 15 * 100;
+        double result = instance.compare(original, comparative);
+        assertEquals(expResult, result, 1e-3);
+    }
+
+    /**
+     * Test of class WordErrorRanker, where SimpleRanker counts more errors
+     * than words.
+     */
+    @Test
+    public void testWordErrorRanker2() {
+        System.out.println("test 2");
+        String original = "GG FF HH ZZ UU II";
+        String comparative = "GG v ZZ v v v v v FF ZZ UU II";
+        WordErrorRanker instance = new WordErrorRanker();
+        double expResult = 8.f / 6 * 100;
+        double result = instance.compare(original, comparative);
+        assertEquals(expResult, result, 1e-3);
+    }
+
+    /**
+     * Test of class WordErrorRanker with empty documents.
+     */
+    @Test
+    public void testWordErrorRanker3() {
+        System.out.println("test 3");
+        WordErrorRanker instance = new WordErrorRanker();
+        assertEquals(0, instance.compare("", ""), 1e-9);
+        assertEquals(300, instance.compare("", "a b c"), 1e-9);
+        assertEquals(100, instance.compare("a b c", ""), 1e-9);
+    }
+
+    /**
+     * Test of class WordErrorRanker against the full matrix, on documents of
+     * many blocks.
+     */
+    @Test
+    public void testWordErrorRanker4() {
+        System.out.println("test 4");
+        Random r = new Random(3);
+        String[] words = {"GG", "FF", "HH", "ZZ", "UU", "II", "v"};
+        for (int t = 0; t < 200; ++t) {
+            int m = r.nextInt(300);
+            String[] a = new String[m];
+            StringBuilder comparative = new StringBuilder();
+            int n = 0;
+            for (int i = 0; i < m; ++i) {
+                a[i] = words[r.nextInt(words.length)];
+                int k = r.nextInt(8);
+                if (k == 1) {
+                    comparative.append(words[r.nextInt(words.length)])
+                            .append(' ');
+                    ++n;
+                }
+                if (k > 0) {
+                    comparative.append(k == 2 ? "x" + r.nextInt(3) : a[i])
+                            .append(' ');
+                    ++n;
+                }
+            }
+            String[] b = comparative.toString().trim().isEmpty()
+                    ? new String[0] : comparative.toString().trim().split(" ");
+            PreparedDocument original = new PreparedDocument(
+                    String.join(" ", a));
+            assertEquals(levenshtein(a, b), WordErrorRanker.distance(original,
+                    original.lookup(comparative)));
+        }
+    }
+
+    /**
+     * Test of class WordErrorRanker with a maximum error rate.
+     */
+    @Test
+    public void testWordErrorRankerMaxError() {
+        System.out.println("test max error");
+        Random r = new Random(3);
+        String[] words = {"GG", "FF", "HH", "ZZ", "UU", "II", "été", "v"};
+        WordErrorRanker instance = new WordErrorRanker();
+        double[] maxRates = {0, 1, 5, 10, 20, 50, 100, 200};
+        for (int i = 0; i < 50; ++i) {
+            StringBuilder original = new StringBuilder();
+            StringBuilder comparative = new StringBuilder();
+            int noise = r.nextInt(20) + 1;
+            for (int j = r.nextInt(300); j >= 0; --j) {
+                String w = words[r.nextInt(words.length)];
+                original.append(w).append(' ');
+                int k = r.nextInt(noise);
+                if (k == 1) {
+                    comparative.append(words[r.nextInt(words.length)])
+                            .append(' ');
+                }
+                if (k > 0 || noise == 1) {
+                    comparative.append(k == 2 ? words[r.nextInt(words.length)]
+                            : w).append(' ');
+                }
+            }
+            String o = original.toString();
+            String c = comparative.toString();
+            RankResult exact = instance.rank(o, c);
+            for (double maxRate : maxRates) {
+                RankResult result = instance.rank(o, c, maxRate);
+                assertEquals(exact.isPassed(maxRate), result.isPassed(maxRate));
+                assertTrue(result.getNbError() <= exact.getNbError());
+                assertTrue(result.getNbErrorMax() >= exact.getNbError());
+                assertEquals(exact.getNbWord(), result.getNbWord());
+            }
+        }
+    }
+
+    /**
+     * Test of class WordErrorRanker on segments of a prepared document.
+     */
+    @Test
+    public void testWordErrorRankerSegment() {
+        System.out.println("test segment");
+        Random r = new Random(5);
+        String[] a = new String[2000];
+        String[] b = new String[a.length];
+        for (int i = 0; i < a.length; ++i) {
+            a[i] = "w" + r.nextInt(500);
+            b[i] = r.nextInt(10) == 0 ? "w" + r.nextInt(600) : a[i];
+        }
+        PreparedDocument original = new PreparedDocument(String.join(" ", a));
+        int[] comparative = original.lookup(String.join(" ", b));
+        WordErrorRanker instance = new WordErrorRanker();
+        for (int t = 0; t < 50; ++t) {
+            int from = r.nextInt(a.length);
+            int to = from + r.nextInt(a.length - from + 1);
+            String[] sa = Arrays.copyOfRange(a, from, to);
+            String[] sb = Arrays.copyOfRange(b, from, to);
+            RankResult result = instance.rank(original, comparative, from, to,
+                    from, to);
+            assertEquals(levenshtein(sa, sb), result.getNbError());
+            assertEquals(to - from, result.getNbWord());
+        }
+        //A word of the document missing from a segment
+        PreparedDocument segment = new PreparedDocument(original, 0, 10);
+        int id = original.getId(10);
+        while (segment.getOccurrences(id) > 0) {
+            id = original.getId(r.nextInt(a.length));
+        }
+        assertEquals(0, segment.getOccurrenceFrom(id, 0));
+        try {
+            segment.getPosition(id, 0);
+            fail("No occurrence");
+        } catch (IndexOutOfBoundsException ex) {
+            //Missing word
+        }
+    }
+}